@@ -0,0 +1,154 @@
+/*
+ * Spacetime Standalone Airfoil
+ * Copyright (C) 2013, John Pritchard.
+ *
+ * This program is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+package airfoil;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of the airfoil generation and query pipeline, from
+ * {@link NACA#init(int)} through {@link
+ * AirfoilVertices#getSectionZ(float,float,float)}.
+ *
+ * Run with "ant bench", which employs the JMH "gc" profiler for
+ * allocation rate.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class AirfoilBenchmark
+    extends Object
+{
+    /**
+     * Number of section probes prepared for {@link #getSectionZ()}
+     */
+    private final static int Probes = 1024;
+
+    /**
+     * Section placement
+     */
+    private final static float Y = 1.0f, TEX = 0.5f, CHORD = 1.0f;
+
+
+    @Param({"20", "1000", "10000", "100000"})
+    public int resolution;
+
+    private NACA naca;
+
+    private AirfoilVertices section;
+
+    private float[] probeX, probeZ, probeOut;
+
+    private int probe;
+
+
+    @Setup(Level.Trial)
+    public void setup(){
+
+        this.naca = new NACA(Airfoil.Properties.Defaults.Identifier);
+        this.naca.init(this.resolution);
+
+        this.section = this.naca.generate(Geometry.Model,Geometry.Section);
+        this.section.translate(Y);
+        this.section.transform(TEX,CHORD);
+        /*
+         * Probe points interior to the chord, alternating over top
+         * and bottom surfaces
+         */
+        final float x0 = this.section.x0();
+        final float xe = this.section.xe();
+        final float dx = ((xe-x0)/(Probes+1));
+
+        this.probeX = new float[Probes];
+        this.probeZ = new float[Probes];
+        this.probeOut = new float[Probes];
+
+        final java.util.Random random = new java.util.Random(this.resolution);
+
+        for (int cc = 0; cc < Probes; cc++){
+
+            this.probeX[cc] = x0 + (dx * (1 + random.nextInt(Probes)));
+            this.probeZ[cc] = (0 == (cc & 1))?(+1.0f):(-1.0f);
+        }
+    }
+
+
+    @Benchmark
+    public AirfoilVertices init(){
+
+        this.naca.init(this.resolution);
+
+        return this.naca.getModelVertices();
+    }
+    @Benchmark
+    public AirfoilVertices generate(){
+
+        return this.naca.generate(Geometry.Model,Geometry.Section);
+    }
+    @Benchmark
+    public float[] transform(){
+
+        this.section.transform(TEX,CHORD);
+
+        return this.section.getSectionVertices();
+    }
+    @Benchmark
+    public float[] transformInPlace(){
+
+        this.section.transform(TEX,CHORD,this.section.getSectionVertices());
+
+        return this.section.getSectionVertices();
+    }
+    @Benchmark
+    public ChordIterator chordIterator(){
+
+        return new ChordIterator(this.section,this.section.getSectionVertices());
+    }
+    @Benchmark
+    public float getSectionZ(){
+
+        final int cc = (this.probe++ & (Probes-1));
+
+        return this.section.getSectionZ(this.probeX[cc],Y,this.probeZ[cc]);
+    }
+    @Benchmark
+    @OperationsPerInvocation(Probes)
+    public float[] getSectionZBatch(){
+
+        this.section.getSectionZ(this.probeX,null,this.probeZ,this.probeOut);
+
+        return this.probeOut;
+    }
+}
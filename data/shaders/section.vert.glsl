@@ -0,0 +1,21 @@
+attribute vec4 a_position;
+attribute vec4 a_normal;
+
+uniform mat4 u_camera;
+uniform vec4 u_color;
+/*
+ * Section placement of the unit (TB3) model: (y, chord, twist),
+ * with twist in radians about the Y axis
+ */
+uniform vec3 u_station;
+
+void main(){
+
+  float c = cos(u_station.z);
+  float s = sin(u_station.z);
+
+  float x = a_position.x * u_station.y;
+  float z = a_position.z * u_station.y;
+
+  gl_Position = u_camera * vec4((c * x) + (s * z), u_station.x, (c * z) - (s * x), 1.0);
+}
@@ -40,6 +40,9 @@ public abstract class Airfoil
 {
     /**
      * {@link Airfoil} instance keys for cache
+     * 
+     * @see AirfoilCache
+     * @see Wing
      */
     public final static class Key
         extends Object
@@ -73,13 +76,20 @@ public abstract class Airfoil
 
         public Airfoil transform(Airfoil foil){
 
-            AirfoilVertices av = foil.getSectionVertices();
+            this.transform(foil.getSectionVertices());
+
+            return foil;
+        }
+        /**
+         * Place a section at this station
+         */
+        public AirfoilVertices transform(AirfoilVertices av){
 
             av.translate( this.y);
 
             av.transform( this.tex, this.chord);
 
-            return foil;
+            return av;
         }
         public int hashCode(){
             return this.hashCode;
@@ -159,6 +169,52 @@ public abstract class Airfoil
         }
     }
 
+    /**
+     * GL mesh retained for a version of a vertex set
+     * 
+     * @see Airfoil#getMesh(Geometry)
+     */
+    private final static class Retained
+        extends Object
+    {
+        final static java.util.concurrent.atomic.AtomicLong Resident = new java.util.concurrent.atomic.AtomicLong();
+
+
+        final AirfoilVertices vertices;
+
+        final int version;
+
+        final boolean section;
+
+        final Mesh mesh;
+
+        final long bytes;
+
+
+        Retained(AirfoilVertices vertices, boolean section, Mesh mesh){
+            super();
+            this.vertices = vertices;
+            this.version = vertices.version();
+            this.section = section;
+            this.mesh = mesh;
+            this.bytes = ((long)mesh.getMaxVertices()*mesh.getVertexSize())+((long)mesh.getMaxIndices()<<1);
+
+            Resident.addAndGet(this.bytes);
+        }
+
+
+        boolean isCurrent(AirfoilVertices vertices, boolean section){
+
+            return (this.vertices == vertices && this.version == vertices.version() && this.section == section);
+        }
+        void dispose(){
+
+            Resident.addAndGet(-this.bytes);
+
+            this.mesh.dispose();
+        }
+    }
+
     public interface Properties {
 
         public interface Names
@@ -270,8 +326,61 @@ public abstract class Airfoil
         else
             throw new IllegalArgumentException(classname);
     }
+    /**
+     * Construct an airfoil for an identifier via the public
+     * constructor with one string parameter, e.g. {@link
+     * NACA#NACA(String)}, without reference to the system property
+     * employed by {@link #Identifier()}.
+     */
+    public final static Airfoil Constructor(String classname, String identifier){
+        if (null == identifier)
+            return Airfoil.Constructor(classname);
+
+        else if (null != classname){
+            try {
+                Class<?> oclas = (Class<?>)Class.forName(classname);
+                if (Airfoil.class.isAssignableFrom(oclas)){
+                    Class<? extends Airfoil> clas = oclas.asSubclass(Airfoil.class);
+                    Constructor<? extends Airfoil> ctor = clas.getConstructor(String.class);
+                    return ctor.newInstance(identifier);
+                }
+                else
+                    throw new IllegalArgumentException(classname);
+            }
+            catch (NoSuchMethodException exc){
+                throw new IllegalStateException(classname,exc);
+            }
+            catch (ClassNotFoundException exc){
+                throw new IllegalStateException(classname,exc);
+            }
+            catch (SecurityException exc){
+                throw new IllegalStateException(classname,exc);
+            }
+            catch (InstantiationException exc){
+                throw new IllegalStateException(classname,exc);
+            }
+            catch (IllegalAccessException exc){
+                throw new IllegalStateException(classname,exc);
+            }
+            catch (InvocationTargetException exc){
+                Throwable cause = exc.getCause();
+                if (cause instanceof ThreadDeath)
+                    throw (ThreadDeath)cause;
+                else
+                    throw new IllegalStateException(classname,cause);
+            }
+        }
+        else
+            throw new IllegalArgumentException(classname);
+    }
+
 
 
+    /**
+     * Retained meshes by geometry ordinal
+     */
+    private Retained[] meshes;
+
 
     public Airfoil(){
         super();
@@ -339,39 +448,122 @@ public abstract class Airfoil
             this.list(Geometry.Model);
     }
     public boolean list(Geometry g){
+
+        return this.list(g,Export.Format.Gnuplot);
+    }
+    /**
+     * @see AirfoilVertices#list(Export.Format)
+     */
+    public boolean list(Geometry g, Export.Format format){
         AirfoilVertices av = this.getModelVertices(g);
         if (null != av){
-            av.list();
+            av.list(format);
             return true;
         }
         else
             return false;
     }
     /**
-     * @return GL_LINES
+     * The mesh is retained until the vertex set of the geometry is
+     * replaced or modified (see {@link AirfoilVertices#version()}),
+     * when it is disposed and rebuilt.  The caller must not dispose
+     * the mesh.  Called from the GL thread.
+     * 
+     * @return GL_LINES over shared vertices (see {@link
+     * IndexedMesh}), or null for a missing vertex set
+     * @see #disposeMeshes()
      */
     public Mesh getMesh(Geometry geometry){
 
+        Retained[] meshes = this.meshes;
+        if (null == meshes){
+            meshes = new Retained[Geometry.values().length];
+            this.meshes = meshes;
+        }
+        final int index = geometry.ordinal();
+
+        final Retained retained = meshes[index];
+
         final AirfoilVertices af = this.getModelVertices(geometry);
+        if (null == af){
+            if (null != retained){
+                meshes[index] = null;
+                retained.dispose();
+            }
+            return null;
+        }
+        else {
+            final boolean section = (af.hasSection() && Geometry.TB3 == geometry);
 
-        final float[] points;
-        if (af.hasSection() && Geometry.TB3 == geometry)
-            points = af.getSectionMeshLines();
-        else
-            points = af.getModelMeshLines();
+            if (null != retained){
+
+                if (retained.isCurrent(af,section))
+
+                    return retained.mesh;
+                else {
+                    meshes[index] = null;
+                    retained.dispose();
+                }
+            }
+
+            final IndexedMesh lines;
+            if (section)
+                lines = af.createSectionMeshIndexed();
+            else
+                lines = af.createModelMeshIndexed();
 
-        final int count = (points.length/geometry.dimension.number);
+            final Mesh mesh = lines.createMesh(VertexAttribute.Position());
 
-        final Mesh mesh = new Mesh(true,count,0,VertexAttribute.Position());
+            meshes[index] = new Retained(af,section,mesh);
 
-        mesh.setVertices(points);
+            return mesh;
+        }
+    }
+    /**
+     * @return Bytes of vertex buffers retained by {@link
+     * #getMesh(Geometry)} in this airfoil
+     */
+    public long getMeshBytes(){
+        long bytes = 0L;
+        final Retained[] meshes = this.meshes;
+        if (null != meshes){
+            for (Retained retained: meshes){
+                if (null != retained)
+                    bytes += retained.bytes;
+            }
+        }
+        return bytes;
+    }
+    /**
+     * @return Bytes of vertex buffers retained by {@link
+     * #getMesh(Geometry)} in all airfoils
+     */
+    public final static long MeshBytes(){
 
-        return mesh;
+        return Retained.Resident.get();
+    }
+    /**
+     * Dispose retained meshes.  Called from the GL thread.
+     */
+    public void disposeMeshes(){
+        final Retained[] meshes = this.meshes;
+        if (null != meshes){
+            this.meshes = null;
+            for (Retained retained: meshes){
+                if (null != retained)
+                    retained.dispose();
+            }
+        }
     }
+    /**
+     * The clone shares no retained meshes
+     */
     @Override
     public Airfoil clone(){
 
-        return (Airfoil)super.clone();
+        Airfoil clone = (Airfoil)super.clone();
+        clone.meshes = null;
+        return clone;
     }
     public String getAirfoilConfiguration(){
         return Airfoil.Configuration();
@@ -389,6 +581,8 @@ public abstract class Airfoil
         return true;
     }
     public void dispose(){
+        this.disposeMeshes();
+
         final Iterable<AirfoilVertices> it = this.iterable(); // type coersion
 
         for (AirfoilVertices vertices: it){
@@ -396,11 +590,26 @@ public abstract class Airfoil
             vertices.dispose();
         }
     }
+    /**
+     * @return Configuration, identifier and vertex sets, with model
+     * arrays as number arrays
+     * @see AirfoilJson
+     */
     public Json toJson(){
-        throw new UnsupportedOperationException();
+
+        return AirfoilJson.Encode(this,false);
     }
+    /**
+     * Replace vertex sets from {@link #toJson()}.  Vertex sets are
+     * unchanged when false.
+     * 
+     * @return False for another configuration or identifier, or
+     * missing vertices
+     * @see AirfoilJson
+     */
     public boolean fromJson(Json json){
-        throw new UnsupportedOperationException();
+
+        return AirfoilJson.Decode(this,json);
     }
 
 
@@ -445,6 +654,13 @@ public abstract class Airfoil
 
         return (AirfoilVertices)this.put(vary.geometry,vary);
     }
+    /**
+     * Remove all vertex sets
+     */
+    public void clearModelVertices(){
+
+        this.clear();
+    }
     public AirfoilVertices copyModelVertices(AirfoilVertices vary){
 
         if (null != vary)
@@ -0,0 +1,341 @@
+/*
+ * Spacetime Standalone Airfoil
+ * Copyright (C) 2013, John Pritchard.
+ *
+ * This program is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+package airfoil;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.graphics.Color;
+import com.badlogic.gdx.graphics.GL20;
+import com.badlogic.gdx.graphics.Mesh;
+import com.badlogic.gdx.graphics.VertexAttribute;
+import com.badlogic.gdx.graphics.VertexAttributes;
+import com.badlogic.gdx.graphics.glutils.ShaderProgram;
+import com.badlogic.gdx.math.Matrix4;
+
+/**
+ * Dynamic batch of many airfoil outlines, in the manner of the gdx
+ * SpriteBatch.
+ *
+ * Between {@link #begin(Matrix4) begin} and {@link #end() end}, each
+ * {@link #draw(AirfoilVertices,Matrix4,Color,int) draw} transforms
+ * an outline on the CPU into one dynamic vertex buffer of (X,Y,Z)
+ * position and packed color.  The buffer is drawn as GL_LINES in one
+ * call when it is full, and at end, so a scene of hundreds of
+ * profiles has one shader begin and few draw calls.
+ *
+ * Outlines drawn with a sort key are drawn in ascending key order,
+ * and otherwise in drawing order, within each flush of up to {@link
+ * #capacity} vertices.  Sorting reorders the outline index ranges,
+ * and does not move vertices.
+ *
+ * Employed from the GL thread.
+ */
+public final class AirfoilBatch
+    extends Object
+    implements com.badlogic.gdx.utils.Disposable
+{
+    public final static String Vertex = "data/shaders/batch.vert.glsl";
+    public final static String Fragment = "data/shaders/batch.frag.glsl";
+    /**
+     * Floats per vertex: (X,Y,Z) and packed color
+     */
+    public final static int Components = 4;
+
+
+    /**
+     * Maximum number of vertices per flush
+     */
+    public final int capacity;
+
+    private final float[] vertices;
+
+    private final short[] indices, sorted;
+    /**
+     * Outline sort key and drawing sequence
+     */
+    private final long[] order;
+    /**
+     * Outline index range
+     */
+    private final int[] first, count;
+
+    private int vertexCount, indexCount, outlines;
+
+    private boolean sorting, drawing;
+
+    private int renderCalls;
+
+    private Mesh mesh;
+
+    private ShaderProgram program;
+
+
+    public AirfoilBatch(){
+        this(IndexedMesh.ShortLimit);
+    }
+    /**
+     * @param capacity Maximum number of vertices per flush, limited
+     * by short indices to {@link IndexedMesh#ShortLimit}
+     * @exception java.lang.IllegalStateException Shader compilation
+     * failed
+     */
+    public AirfoilBatch(int capacity){
+        super();
+        if (2 > capacity || IndexedMesh.ShortLimit < capacity)
+            throw new IllegalArgumentException(String.format("Capacity %d exceeds %d",capacity,IndexedMesh.ShortLimit));
+        else {
+            final ShaderProgram program = new ShaderProgram(Gdx.files.internal(Vertex).readString(),
+                                                            Gdx.files.internal(Fragment).readString());
+            if (program.isCompiled()){
+                this.program = program;
+                this.capacity = capacity;
+                this.vertices = new float[capacity*Components];
+                this.indices = new short[capacity*2];
+                this.sorted = new short[capacity*2];
+
+                final int outlines = (capacity/2);
+                this.order = new long[outlines];
+                this.first = new int[outlines];
+                this.count = new int[outlines];
+
+                this.mesh = new Mesh(false,capacity,this.indices.length,
+                                     new VertexAttribute(VertexAttributes.Usage.Position,3,
+                                                         ShaderProgram.POSITION_ATTRIBUTE),
+                                     new VertexAttribute(VertexAttributes.Usage.ColorPacked,4,
+                                                         ShaderProgram.COLOR_ATTRIBUTE));
+            }
+            else {
+                final String log = program.getLog();
+                program.dispose();
+                throw new IllegalStateException(log);
+            }
+        }
+    }
+
+
+    public boolean isDrawing(){
+        return this.drawing;
+    }
+    /**
+     * @return Number of draw calls since begin
+     */
+    public int getRenderCalls(){
+        return this.renderCalls;
+    }
+    public void begin(Matrix4 camera){
+        if (this.drawing)
+            throw new IllegalStateException("Missing end");
+        else {
+            this.drawing = true;
+            this.renderCalls = 0;
+
+            final ShaderProgram program = this.program;
+
+            program.begin();
+
+            program.setUniformMatrix("u_camera", camera);
+        }
+    }
+    /**
+     * Draw the outline untransformed
+     */
+    public void draw(AirfoilVertices airfoil, Color color){
+
+        this.draw(airfoil,null,color,0);
+    }
+    public void draw(AirfoilVertices airfoil, Matrix4 transform, Color color){
+
+        this.draw(airfoil,transform,color,0);
+    }
+    /**
+     * @param airfoil Outline from its section when present, and
+     * otherwise from its model
+     * @param transform Placement, or null
+     * @param color Vertex color
+     * @param sort Draw order key
+     */
+    public void draw(AirfoilVertices airfoil, Matrix4 transform, Color color, int sort){
+
+        float[] vertices = airfoil.getSectionVertices();
+        if (null == vertices)
+            vertices = airfoil.getModelVertices();
+
+        this.draw(vertices,airfoil.geometry.dimension.number,transform,color.toFloatBits(),sort);
+    }
+    /**
+     * @param outline Polyline vertices
+     * @param dimension Components per vertex, two or three
+     * @param transform Placement, or null
+     * @param color Packed vertex color
+     * @param sort Draw order key
+     */
+    public void draw(float[] outline, int dimension, Matrix4 transform, float color, int sort){
+        if (!this.drawing)
+            throw new IllegalStateException("Missing begin");
+        else if (2 > dimension || 3 < dimension)
+            throw new IllegalArgumentException(String.valueOf(dimension));
+        else {
+            final int np = (outline.length/dimension);
+            if (np > this.capacity)
+                throw new IllegalArgumentException(String.format("Outline %d exceeds capacity %d",np,this.capacity));
+
+            else if (1 < np){
+
+                if ((this.vertexCount+np) > this.capacity)
+                    this.flush();
+
+                final int v0 = this.vertexCount;
+
+                Transform(outline,dimension,np,((null != transform)?(transform.val):(null)),color,
+                          this.vertices,(v0*Components));
+
+                final short[] indices = this.indices;
+                final int i0 = this.indexCount;
+                int ix = i0;
+                for (int vv = v0, last = (v0+np-1); vv < last; vv++){
+
+                    indices[ix++] = (short)vv;
+                    indices[ix++] = (short)(vv+1);
+                }
+                final int index = this.outlines;
+
+                this.order[index] = (((long)sort<<32)|index);
+                this.first[index] = i0;
+                this.count[index] = (ix-i0);
+                if (0 != sort)
+                    this.sorting = true;
+
+                this.outlines = (index+1);
+                this.indexCount = ix;
+                this.vertexCount = (v0+np);
+            }
+        }
+    }
+    /**
+     * Draw and clear the batch
+     */
+    public void flush(){
+
+        final int indexCount = this.indexCount;
+        if (0 < indexCount){
+
+            short[] indices = this.indices;
+            if (this.sorting){
+
+                final long[] order = this.order;
+                final int outlines = this.outlines;
+
+                java.util.Arrays.sort(order,0,outlines);
+
+                final short[] sorted = this.sorted;
+                int ix = 0;
+                for (int cc = 0; cc < outlines; cc++){
+
+                    final int index = (int)(order[cc] & 0xFFFFFFFFL);
+                    final int count = this.count[index];
+
+                    System.arraycopy(indices,this.first[index],sorted,ix,count);
+                    ix += count;
+                }
+                indices = sorted;
+            }
+            final Mesh mesh = this.mesh;
+
+            mesh.setVertices(this.vertices,0,(this.vertexCount*Components));
+            mesh.setIndices(indices,0,indexCount);
+
+            mesh.render(this.program,GL20.GL_LINES,0,indexCount);
+
+            this.renderCalls += 1;
+        }
+        this.vertexCount = 0;
+        this.indexCount = 0;
+        this.outlines = 0;
+        this.sorting = false;
+    }
+    public void end(){
+        if (!this.drawing)
+            throw new IllegalStateException("Missing begin");
+        else {
+            this.flush();
+
+            this.drawing = false;
+
+            this.program.end();
+        }
+    }
+    public void dispose(){
+
+        final Mesh mesh = this.mesh;
+        if (null != mesh){
+            this.mesh = null;
+            mesh.dispose();
+        }
+        final ShaderProgram program = this.program;
+        if (null != program){
+            this.program = null;
+            program.dispose();
+        }
+    }
+
+
+    /**
+     * Transform a polyline into batch vertices.
+     *
+     * @param outline Source vertices
+     * @param dimension Components per source vertex, two or three,
+     * with Z zero for two
+     * @param np Number of vertices
+     * @param matrix Column major 4x4 (as {@link Matrix4#val}), or null
+     * for identity
+     * @param color Packed vertex color
+     * @param dst Destination of (np x {@link #Components}) floats at
+     * 'ofs'
+     */
+    public final static void Transform(float[] outline, int dimension, int np, float[] matrix, float color,
+                                       float[] dst, int ofs)
+    {
+        if (null == matrix){
+
+            for (int cc = 0, sx = 0, tx = ofs; cc < np; cc++, sx += dimension, tx += Components){
+
+                dst[tx] = outline[sx];
+                dst[tx+1] = outline[sx+1];
+                dst[tx+2] = (3 == dimension)?(outline[sx+2]):(0.0f);
+                dst[tx+3] = color;
+            }
+        }
+        else {
+            final float m00 = matrix[Matrix4.M00], m01 = matrix[Matrix4.M01], m02 = matrix[Matrix4.M02], m03 = matrix[Matrix4.M03];
+            final float m10 = matrix[Matrix4.M10], m11 = matrix[Matrix4.M11], m12 = matrix[Matrix4.M12], m13 = matrix[Matrix4.M13];
+            final float m20 = matrix[Matrix4.M20], m21 = matrix[Matrix4.M21], m22 = matrix[Matrix4.M22], m23 = matrix[Matrix4.M23];
+
+            for (int cc = 0, sx = 0, tx = ofs; cc < np; cc++, sx += dimension, tx += Components){
+
+                final float x = outline[sx];
+                final float y = outline[sx+1];
+                final float z = (3 == dimension)?(outline[sx+2]):(0.0f);
+
+                dst[tx] = (m00*x)+(m01*y)+(m02*z)+m03;
+                dst[tx+1] = (m10*x)+(m11*y)+(m12*z)+m13;
+                dst[tx+2] = (m20*x)+(m21*y)+(m22*z)+m23;
+                dst[tx+3] = color;
+            }
+        }
+    }
+}
@@ -0,0 +1,370 @@
+/*
+ * Spacetime Standalone Airfoil
+ * Copyright (C) 2013, John Pritchard.
+ *
+ * This program is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+package airfoil;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Bounded cache of generated airfoil vertices.
+ *
+ * Entries are keyed by airfoil configuration (class name),
+ * identifier, resolution and geometry, and optionally by the span
+ * station {@link Airfoil.Key} of a placed section.  Values are shared
+ * {@link AirfoilVertices#snapshot() snapshots}.
+ *
+ * The cache is thread safe, and evicts least recently used entries
+ * beyond a capacity in bytes of resident vertex arrays.  The capacity
+ * of the {@link #Default} cache is the system property
+ * "airfoil.AirfoilCache.Capacity", defaulting to 64 MB.
+ *
+ * A miss is read from the {@link Library} of the cache when it has
+ * the entry, and is otherwise generated.  The {@link #Default} cache
+ * employs the {@link Library#Default() default} library, which is
+ * opened on the first miss.
+ */
+public final class AirfoilCache
+    extends Object
+{
+    public final static long DefaultCapacity = Long.getLong("airfoil.AirfoilCache.Capacity",(64L<<20));
+
+    public final static AirfoilCache Default = new AirfoilCache(DefaultCapacity,null,true);
+
+    /**
+     * Cache entry key
+     */
+    public final static class Key
+        extends Object
+    {
+        public final String configuration, identifier;
+
+        public final int resolution;
+
+        public final Geometry geometry;
+        /**
+         * Span station, or null for an unplaced model or section
+         */
+        public final Airfoil.Key station;
+
+        private final int hashCode;
+
+
+        public Key(String configuration, String identifier, int resolution, Geometry geometry, Airfoil.Key station){
+            super();
+            if (null == configuration || null == identifier || null == geometry || 0 >= resolution)
+                throw new IllegalArgumentException();
+            else if (null != station && Geometry.Section != geometry)
+                throw new IllegalArgumentException(String.format("Station in '%s'",geometry.name()));
+            else {
+                this.configuration = configuration;
+                this.identifier = identifier;
+                this.resolution = resolution;
+                this.geometry = geometry;
+                this.station = station;
+
+                int hashCode = configuration.hashCode();
+                hashCode = (31*hashCode)+identifier.hashCode();
+                hashCode = (31*hashCode)+resolution;
+                hashCode = (31*hashCode)+geometry.ordinal();
+                if (null != station){
+                    hashCode = (31*hashCode)+Float.floatToIntBits(station.y);
+                    hashCode = (31*hashCode)+Float.floatToIntBits(station.lex);
+                    hashCode = (31*hashCode)+Float.floatToIntBits(station.tex);
+                    hashCode = (31*hashCode)+Float.floatToIntBits(station.chord);
+                }
+
+                this.hashCode = hashCode;
+            }
+        }
+
+
+        public int hashCode(){
+            return this.hashCode;
+        }
+        public boolean equals(Object that){
+            if (this == that)
+                return true;
+            else if (that instanceof Key)
+                return this.equals((Key)that);
+            else
+                return false;
+        }
+        public boolean equals(Key that){
+            if (this == that)
+                return true;
+            else if (null == that)
+                return false;
+            else if (this.hashCode == that.hashCode
+                     && this.resolution == that.resolution
+                     && this.geometry == that.geometry
+                     && this.identifier.equals(that.identifier)
+                     && this.configuration.equals(that.configuration))
+            {
+                if (null == this.station)
+                    return (null == that.station);
+                else
+                    return Equals(this.station,that.station);
+            }
+            else
+                return false;
+        }
+        public String toString(){
+            if (null == this.station)
+                return String.format("%s %s %d %s",this.configuration,this.identifier,this.resolution,this.geometry);
+            else
+                return String.format("%s %s %d %s y % 4.4f",this.configuration,this.identifier,this.resolution,this.geometry,this.station.y);
+        }
+        /**
+         * Stations are equal in every placement component.  The
+         * {@link Airfoil.Key} equality compares the leading edge
+         * only, and is not a cache identity.
+         */
+        private final static boolean Equals(Airfoil.Key a, Airfoil.Key b){
+            if (null == b)
+                return false;
+            else
+                return (Float.floatToIntBits(a.y) == Float.floatToIntBits(b.y)
+                        && Float.floatToIntBits(a.lex) == Float.floatToIntBits(b.lex)
+                        && Float.floatToIntBits(a.tex) == Float.floatToIntBits(b.tex)
+                        && Float.floatToIntBits(a.chord) == Float.floatToIntBits(b.chord));
+        }
+    }
+    /**
+     * @return Bytes of vertex arrays in a snapshot
+     */
+    public final static long Sizeof(AirfoilVertices vertices){
+        long size = 0L;
+        final float[] model = vertices.getModelVertices();
+        if (null != model)
+            size += (model.length<<2);
+
+        final float[] section = vertices.getSectionVertices();
+        if (null != section)
+            size += (section.length<<2);
+
+        return size;
+    }
+
+
+    public final long capacity;
+    /**
+     * Precomputed vertex sets, or null
+     */
+    private final Library library;
+    /**
+     * Employ the default library
+     */
+    private final boolean libraryDefault;
+
+    private final LinkedHashMap<Key,AirfoilVertices> map = new LinkedHashMap<Key,AirfoilVertices>(16,0.75f,true);
+
+    private long resident, hits, misses, evictions;
+
+
+    /**
+     * @param capacity Maximum bytes of resident vertex arrays
+     */
+    public AirfoilCache(long capacity){
+        this(capacity,null);
+    }
+    /**
+     * @param capacity Maximum bytes of resident vertex arrays
+     * @param library Precomputed vertex sets, or null
+     */
+    public AirfoilCache(long capacity, Library library){
+        this(capacity,library,false);
+    }
+    private AirfoilCache(long capacity, Library library, boolean libraryDefault){
+        super();
+        if (0L < capacity){
+            this.capacity = capacity;
+            this.library = library;
+            this.libraryDefault = libraryDefault;
+        }
+        else
+            throw new IllegalArgumentException(String.valueOf(capacity));
+    }
+
+
+    /**
+     * @return Precomputed vertex sets, or null
+     * @exception java.lang.IllegalStateException Failure to open the
+     * default library
+     */
+    public Library getLibrary(){
+        if (this.libraryDefault){
+            try {
+                return Library.Default();
+            }
+            catch (java.io.IOException exc){
+                throw new IllegalStateException(String.format("Library '%s'",System.getProperty(Library.Property)),exc);
+            }
+        }
+        else
+            return this.library;
+    }
+    /**
+     * @see Airfoil#Configuration()
+     */
+    public AirfoilVertices get(String identifier, int resolution, Geometry geometry){
+
+        return this.get(new Key(Airfoil.Configuration(),identifier,resolution,geometry,null));
+    }
+    public AirfoilVertices get(String configuration, String identifier, int resolution, Geometry geometry){
+
+        return this.get(new Key(configuration,identifier,resolution,geometry,null));
+    }
+    /**
+     * @param station Section placement applied via {@link
+     * Airfoil.Key#transform(Airfoil)} to the {@link Geometry#Section
+     * section}
+     */
+    public AirfoilVertices get(String configuration, String identifier, int resolution, Airfoil.Key station){
+
+        return this.get(new Key(configuration,identifier,resolution,Geometry.Section,station));
+    }
+    /**
+     * Lookup, or read or generate, a snapshot.  Generation is
+     * performed outside the cache lock, so concurrent misses on one
+     * key may both generate, and the first to complete is retained.
+     *
+     * @exception java.lang.IllegalStateException Failure to open the
+     * default library
+     */
+    public AirfoilVertices get(Key key){
+        synchronized(this.map){
+            AirfoilVertices vertices = this.map.get(key);
+            if (null != vertices){
+                this.hits += 1;
+                return vertices;
+            }
+            else
+                this.misses += 1;
+        }
+
+        final Library library = this.getLibrary();
+
+        AirfoilVertices vertices = (null != library)?(library.get(key)):(null);
+        if (null == vertices)
+            vertices = Generate(key);
+
+        synchronized(this.map){
+            AirfoilVertices prior = this.map.get(key);
+            if (null != prior)
+                return prior;
+            else {
+                this.map.put(key,vertices);
+                this.resident += Sizeof(vertices);
+                this.evict();
+                return vertices;
+            }
+        }
+    }
+    public boolean contains(Key key){
+        synchronized(this.map){
+            return this.map.containsKey(key);
+        }
+    }
+    public AirfoilVertices remove(Key key){
+        synchronized(this.map){
+            AirfoilVertices vertices = this.map.remove(key);
+            if (null != vertices)
+                this.resident -= Sizeof(vertices);
+            return vertices;
+        }
+    }
+    public void clear(){
+        synchronized(this.map){
+            this.map.clear();
+            this.resident = 0L;
+        }
+    }
+    public int size(){
+        synchronized(this.map){
+            return this.map.size();
+        }
+    }
+    /**
+     * @return Bytes of resident vertex arrays
+     */
+    public long resident(){
+        synchronized(this.map){
+            return this.resident;
+        }
+    }
+    public long hits(){
+        synchronized(this.map){
+            return this.hits;
+        }
+    }
+    public long misses(){
+        synchronized(this.map){
+            return this.misses;
+        }
+    }
+    public long evictions(){
+        synchronized(this.map){
+            return this.evictions;
+        }
+    }
+    public String toString(){
+        synchronized(this.map){
+            return String.format("AirfoilCache size %d resident %d/%d hits %d misses %d evictions %d",
+                                 this.map.size(),this.resident,this.capacity,this.hits,this.misses,this.evictions);
+        }
+    }
+    /**
+     * Evict least recently used entries beyond capacity, retaining
+     * at least the most recent entry.  Called holding the map lock.
+     */
+    private void evict(){
+
+        final Iterator<Map.Entry<Key,AirfoilVertices>> it = this.map.entrySet().iterator();
+
+        while (this.capacity < this.resident && 1 < this.map.size() && it.hasNext()){
+
+            final Map.Entry<Key,AirfoilVertices> eldest = it.next();
+
+            it.remove();
+
+            this.resident -= Sizeof(eldest.getValue());
+            this.evictions += 1;
+        }
+    }
+
+
+    private final static AirfoilVertices Generate(Key key){
+
+        final Airfoil foil = Airfoil.Constructor(key.configuration,key.identifier);
+
+        foil.init(key.resolution);
+
+        final AirfoilVertices vertices = foil.generate(Geometry.Model,key.geometry);
+
+        if (null != key.station){
+
+            key.station.transform(foil);
+
+            return foil.getSectionVertices().snapshot();
+        }
+        else
+            return vertices.snapshot();
+    }
+}
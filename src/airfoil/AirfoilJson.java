@@ -0,0 +1,1028 @@
+/*
+ * Spacetime Standalone Airfoil
+ * Copyright (C) 2013, John Pritchard.
+ *
+ * This program is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+package airfoil;
+
+import json.ArrayJson;
+import json.B64;
+import json.Json;
+import json.ObjectJson;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * JSON codec for {@link Airfoil} vertex sets.
+ *
+ * <pre>
+ * {
+ *   "configuration": "airfoil.NACA",
+ *   "identifier": "2509",
+ *   "description": "NACA 2509",
+ *   "vertices": [
+ *     {
+ *       "geometry": "TB2",
+ *       "np": 129,
+ *       "description": "NACA 2509",
+ *       "model": [1.0, 0.0, ...]
+ *     },
+ *     {
+ *       "geometry": "TB3",
+ *       "np": 129,
+ *       "y": 1.0, "tex": 0.5, "chord": 1.0,
+ *       "model": "AACAPwAAAAA..."
+ *     }
+ *   ]
+ * }
+ * </pre>
+ *
+ * A document is read into an airfoil of the same configuration and
+ * {@link Airfoil#getAirfoilIdentifier() identifier}, replacing all of
+ * its vertex sets.
+ *
+ * Each model array is a number sequence, or a base 64 string of its
+ * little endian floats.  A section is not stored, but recomputed by
+ * {@link AirfoilVertices#transform(float,float)} from its model and
+ * placement, which is exact.
+ *
+ * The {@link #Encode(Airfoil,boolean) tree} codec employs the json
+ * library objects of {@link Airfoil#toJson()}.  The {@link
+ * #Write(Airfoil,java.io.Writer,boolean) streaming} codec writes and
+ * reads the same text directly from the vertex arrays through fixed
+ * buffers, so heap use is bounded by the vertex arrays themselves.
+ * Floats are written in their shortest decimal form, and read back
+ * exactly.
+ */
+public final class AirfoilJson
+    extends Object
+{
+    /**
+     * Member names
+     */
+    public interface Fields {
+
+        public final static String Configuration = "configuration";
+        public final static String Identifier = "identifier";
+        public final static String Description = "description";
+        public final static String Vertices = "vertices";
+        public final static String Geometry = "geometry";
+        public final static String Np = "np";
+        public final static String Y = "y";
+        public final static String Tex = "tex";
+        public final static String Chord = "chord";
+        public final static String Model = "model";
+    }
+
+
+    /**
+     * @param b64 Model arrays as base 64 strings, otherwise as
+     * number arrays
+     */
+    public final static Json Encode(Airfoil foil, boolean b64){
+
+        final ObjectJson json = new ObjectJson();
+
+        json.set(Fields.Configuration,foil.getClass().getName());
+        json.set(Fields.Identifier,foil.getAirfoilIdentifier());
+        json.set(Fields.Description,foil.toString());
+
+        final ArrayJson list = new ArrayJson();
+
+        for (AirfoilVertices vertices: Vertices(foil)){
+
+            final ObjectJson item = new ObjectJson();
+
+            item.set(Fields.Geometry,vertices.geometry.name());
+            item.set(Fields.Np,vertices.np);
+
+            final String description = vertices.getDescription();
+            if (null != description)
+                item.set(Fields.Description,description);
+
+            if (null != vertices.getSectionVertices()){
+                item.set(Fields.Y,vertices.y());
+                item.set(Fields.Tex,vertices.tex());
+                item.set(Fields.Chord,vertices.chord());
+            }
+
+            final float[] model = vertices.getModelVertices();
+            if (b64)
+                item.set(Fields.Model,Encode(model));
+            else {
+                final ArrayJson array = new ArrayJson();
+                for (float f: model){
+                    array.add(f);
+                }
+                item.set(Fields.Model,array);
+            }
+            list.add(item);
+        }
+        json.set(Fields.Vertices,list);
+
+        return json;
+    }
+    /**
+     * Replace the vertex sets of the airfoil from a tree.  The vertex
+     * sets are unchanged when false or on exception.
+     *
+     * @return False for another configuration or identifier, or
+     * missing vertices
+     * @exception java.lang.IllegalArgumentException Malformed vertex
+     * set
+     */
+    public final static boolean Decode(Airfoil foil, Json json){
+
+        final Json configuration = json.at(Fields.Configuration);
+        final Json identifier = json.at(Fields.Identifier);
+        if (null == configuration || !foil.getClass().getName().equals(configuration.asString()))
+            return false;
+        else if (null == identifier || !foil.getAirfoilIdentifier().equals(identifier.asString()))
+            return false;
+        else {
+            final Json list = json.at(Fields.Vertices);
+            if (null == list || !list.isArray())
+                return false;
+            else {
+                final java.util.ArrayList<AirfoilVertices> decoded = new java.util.ArrayList<AirfoilVertices>();
+
+                for (Json item: (ArrayJson)list){
+
+                    final Json geometry = item.at(Fields.Geometry);
+                    final Json model = item.at(Fields.Model);
+                    if (null == geometry || null == model)
+                        throw new IllegalArgumentException("Missing geometry or model");
+                    else {
+                        final float[] vertices;
+                        if (model.isString())
+                            vertices = Decode(model.asString());
+
+                        else if (model.isArray()){
+                            final Json[] array = ((ArrayJson)model).toArray();
+                            final int count = array.length;
+                            vertices = new float[count];
+                            for (int cc = 0; cc < count; cc++){
+                                vertices[cc] = array[cc].asFloat();
+                            }
+                        }
+                        else
+                            throw new IllegalArgumentException("Model type");
+
+                        final Section section;
+                        if (item.has(Fields.Tex))
+                            section = new Section(item.at(Fields.Y).asFloat(),item.at(Fields.Tex).asFloat(),
+                                                  item.at(Fields.Chord).asFloat());
+                        else
+                            section = null;
+
+                        final Json np = item.at(Fields.Np);
+                        final Json description = item.at(Fields.Description);
+
+                        decoded.add(Create(Geometry.For(geometry.asString()),
+                                           ((null != np)?(np.asInteger()):(-1)),
+                                           vertices,
+                                           ((null != description)?(description.asString()):(null)),
+                                           section));
+                    }
+                }
+                return Install(foil,decoded);
+            }
+        }
+    }
+    /**
+     * Stream the airfoil as JSON text.
+     *
+     * @param out Destination, which is not flushed or closed
+     * @param b64 Model arrays as base 64 strings, otherwise as
+     * number arrays
+     */
+    public final static void Write(Airfoil foil, java.io.Writer out, boolean b64)
+        throws IOException
+    {
+        final Output output = new Output(out);
+
+        output.write("{\n  ");
+        output.member(Fields.Configuration);
+        output.string(foil.getClass().getName());
+        output.write(",\n  ");
+        output.member(Fields.Identifier);
+        output.string(foil.getAirfoilIdentifier());
+        output.write(",\n  ");
+        output.member(Fields.Description);
+        output.string(foil.toString());
+        output.write(",\n  ");
+        output.member(Fields.Vertices);
+        output.write('[');
+
+        boolean first = true;
+
+        for (AirfoilVertices vertices: Vertices(foil)){
+
+            if (first)
+                first = false;
+            else
+                output.write(',');
+
+            output.write("\n    {\n      ");
+            output.member(Fields.Geometry);
+            output.string(vertices.geometry.name());
+            output.write(",\n      ");
+            output.member(Fields.Np);
+            output.write(String.valueOf(vertices.np));
+
+            final String description = vertices.getDescription();
+            if (null != description){
+                output.write(",\n      ");
+                output.member(Fields.Description);
+                output.string(description);
+            }
+            if (null != vertices.getSectionVertices()){
+                output.write(",\n      ");
+                output.member(Fields.Y);
+                output.number(vertices.y());
+                output.write(", ");
+                output.member(Fields.Tex);
+                output.number(vertices.tex());
+                output.write(", ");
+                output.member(Fields.Chord);
+                output.number(vertices.chord());
+            }
+            output.write(",\n      ");
+            output.member(Fields.Model);
+
+            final float[] model = vertices.getModelVertices();
+            if (b64)
+                output.b64(model);
+            else {
+                output.write('[');
+                for (int cc = 0, count = model.length; cc < count; cc++){
+                    if (0 != cc)
+                        output.write(',');
+                    output.number(model[cc]);
+                }
+                output.write(']');
+            }
+            output.write("\n    }");
+        }
+        output.write("\n  ]\n}\n");
+
+        output.flush();
+    }
+    /**
+     * Replace the vertex sets of the airfoil from streaming JSON
+     * text.  Members other than those of {@link Fields} are skipped.
+     * The vertex sets are unchanged when false or on exception.
+     *
+     * @param in Source, which is not closed
+     * @return False for another configuration or identifier, or
+     * missing vertices
+     * @exception java.lang.IllegalArgumentException Malformed text or
+     * vertex set
+     */
+    public final static boolean Read(Airfoil foil, java.io.Reader in)
+        throws IOException
+    {
+        final Input input = new Input(in);
+
+        final java.util.ArrayList<AirfoilVertices> list = new java.util.ArrayList<AirfoilVertices>();
+
+        boolean configuration = false, identifier = false;
+
+        input.expect('{');
+        if ('}' != input.peek()){
+            do {
+                final String name = input.string();
+                input.expect(':');
+
+                if (Fields.Configuration.equals(name))
+                    configuration = foil.getClass().getName().equals(input.string());
+
+                else if (Fields.Identifier.equals(name))
+                    identifier = foil.getAirfoilIdentifier().equals(input.string());
+
+                else if (Fields.Vertices.equals(name)){
+                    input.expect('[');
+                    if (']' != input.peek()){
+                        do {
+                            list.add(ReadVertices(input));
+                        }
+                        while (input.more(']'));
+                    }
+                    else
+                        input.expect(']');
+                }
+                else
+                    input.skip();
+            }
+            while (input.more('}'));
+        }
+        else
+            input.expect('}');
+
+        if (configuration && identifier)
+            return Install(foil,list);
+        else
+            return false;
+    }
+
+
+    /**
+     * Replace all vertex sets of the airfoil with a non empty list
+     */
+    private final static boolean Install(Airfoil foil, java.util.List<AirfoilVertices> list){
+
+        if (list.isEmpty())
+            return false;
+        else {
+            foil.clearModelVertices();
+
+            for (AirfoilVertices vertices: list){
+
+                foil.setModelVertices(vertices);
+            }
+            return true;
+        }
+    }
+
+
+    private final static AirfoilVertices ReadVertices(Input input)
+        throws IOException
+    {
+        Geometry geometry = null;
+        int np = -1;
+        String description = null;
+        float y = 0.0f, tex = 0.0f, chord = 0.0f;
+        boolean section = false;
+        float[] model = null;
+
+        input.expect('{');
+        if ('}' != input.peek()){
+            do {
+                final String name = input.string();
+                input.expect(':');
+
+                if (Fields.Geometry.equals(name))
+                    geometry = Geometry.For(input.string());
+
+                else if (Fields.Np.equals(name))
+                    np = (int)input.number();
+
+                else if (Fields.Description.equals(name))
+                    description = input.string();
+
+                else if (Fields.Y.equals(name))
+                    y = input.number();
+
+                else if (Fields.Tex.equals(name)){
+                    tex = input.number();
+                    section = true;
+                }
+                else if (Fields.Chord.equals(name))
+                    chord = input.number();
+
+                else if (Fields.Model.equals(name)){
+                    final int length = (null != geometry && 0 < np)?(np*geometry.dimension.number):(-1);
+
+                    if ('"' == input.peek())
+                        model = input.b64(length);
+                    else
+                        model = input.numbers(length);
+                }
+                else
+                    input.skip();
+            }
+            while (input.more('}'));
+        }
+        else
+            input.expect('}');
+
+        if (null == geometry || null == model)
+            throw new IllegalArgumentException("Missing geometry or model");
+        else
+            return Create(geometry,np,model,description,(section)?(new Section(y,tex,chord)):(null));
+    }
+    /**
+     * Section placement
+     */
+    private final static class Section
+        extends Object
+    {
+        final float y, tex, chord;
+
+        Section(float y, float tex, float chord){
+            super();
+            this.y = y;
+            this.tex = tex;
+            this.chord = chord;
+        }
+    }
+    private final static AirfoilVertices Create(Geometry geometry, int np, float[] model, String description, Section section){
+
+        if (0 > np)
+            np = (model.length/geometry.dimension.number);
+
+        final AirfoilVertices vertices = new AirfoilVertices(geometry,np,model);
+
+        if (null != description)
+            vertices.setDescription(description);
+
+        if (null != section){
+            vertices.translate(section.y);
+            vertices.transform(section.tex,section.chord);
+        }
+        return vertices;
+    }
+    /**
+     * @return Base 64 string of little endian floats
+     */
+    public final static String Encode(float[] array){
+
+        final java.io.StringWriter string = new java.io.StringWriter(((array.length<<2)+2)/3*4+2);
+        try {
+            final Output output = new Output(string);
+            output.b64(array);
+            output.flush();
+        }
+        catch (IOException exc){
+            throw new Error(exc);
+        }
+        final StringBuffer buffer = string.getBuffer();
+
+        return buffer.substring(1,(buffer.length()-1));
+    }
+    /**
+     * @param string Base 64 of little endian floats
+     */
+    public final static float[] Decode(String string){
+
+        final byte[] bytes = B64.decode(string);
+        if (null == bytes || 0 != (bytes.length & 3))
+            throw new IllegalArgumentException("Model base 64 length");
+        else {
+            final float[] array = new float[bytes.length>>2];
+
+            ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN).asFloatBuffer().get(array);
+
+            return array;
+        }
+    }
+
+    /**
+     * The vertex sets of the airfoil are the children of the raw
+     * spacetime store, which are always AirfoilVertices.
+     */
+    @SuppressWarnings("unchecked")
+    private final static Iterable<AirfoilVertices> Vertices(Airfoil foil){
+
+        return foil.iterable();
+    }
+
+    /**
+     * Buffered text output
+     */
+    private final static class Output
+        extends Object
+    {
+        /**
+         * Floats per base 64 chunk, in a multiple of three bytes
+         */
+        private final static int Chunk = 768;
+
+
+        private final java.io.Writer out;
+
+        private final char[] buffer = new char[8192];
+
+        private int pos;
+
+        private final StringBuilder number = new StringBuilder(32);
+
+
+        Output(java.io.Writer out){
+            super();
+            this.out = out;
+        }
+
+
+        void write(char c)
+            throws IOException
+        {
+            if (this.pos == this.buffer.length)
+                this.drain();
+
+            this.buffer[this.pos++] = c;
+        }
+        void write(CharSequence string)
+            throws IOException
+        {
+            for (int cc = 0, count = string.length(); cc < count; cc++){
+
+                this.write(string.charAt(cc));
+            }
+        }
+        void member(String name)
+            throws IOException
+        {
+            this.string(name);
+            this.write(": ");
+        }
+        void string(String string)
+            throws IOException
+        {
+            this.write('"');
+            for (int cc = 0, count = string.length(); cc < count; cc++){
+
+                final char c = string.charAt(cc);
+                switch(c){
+                case '"':
+                case '\\':
+                    this.write('\\');
+                    this.write(c);
+                    break;
+                case '\n':
+                    this.write("\\n");
+                    break;
+                case '\r':
+                    this.write("\\r");
+                    break;
+                case '\t':
+                    this.write("\\t");
+                    break;
+                default:
+                    if (' ' > c)
+                        this.write(String.format("\\u%04x",(int)c));
+                    else
+                        this.write(c);
+                    break;
+                }
+            }
+            this.write('"');
+        }
+        /**
+         * Shortest decimal float, as by Float.toString
+         */
+        void number(float value)
+            throws IOException
+        {
+            if (Float.isNaN(value) || Float.isInfinite(value))
+                throw new IllegalArgumentException(String.valueOf(value));
+            else {
+                final StringBuilder number = this.number;
+                number.setLength(0);
+                number.append(value);
+
+                final int length = number.length();
+                if (length > (this.buffer.length-this.pos))
+                    this.drain();
+
+                number.getChars(0,length,this.buffer,this.pos);
+                this.pos += length;
+            }
+        }
+        /**
+         * Base 64 string of little endian floats
+         */
+        void b64(float[] array)
+            throws IOException
+        {
+            final ByteBuffer bytes = ByteBuffer.allocate(Chunk<<2).order(ByteOrder.LITTLE_ENDIAN);
+            final byte[] src = bytes.array();
+            final byte[] dst = new byte[4];
+
+            this.write('"');
+
+            for (int ofs = 0, count = array.length; ofs < count; ofs += Chunk){
+
+                final int length = Math.min(Chunk,(count-ofs));
+
+                bytes.clear();
+                bytes.asFloatBuffer().put(array,ofs,length);
+
+                final int end = (length<<2);
+                for (int bx = 0; bx < end; bx += 3){
+
+                    B64.encode3to4(src,bx,Math.min(3,(end-bx)),dst,0);
+
+                    this.write((char)dst[0]);
+                    this.write((char)dst[1]);
+                    this.write((char)dst[2]);
+                    this.write((char)dst[3]);
+                }
+            }
+            this.write('"');
+        }
+        void flush()
+            throws IOException
+        {
+            this.drain();
+        }
+        private void drain()
+            throws IOException
+        {
+            if (0 < this.pos){
+                this.out.write(this.buffer,0,this.pos);
+                this.pos = 0;
+            }
+        }
+    }
+    /**
+     * Buffered text input
+     */
+    private final static class Input
+        extends Object
+    {
+        private final static double[] Pow10 = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+            1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+        };
+
+
+        private final java.io.Reader in;
+
+        private final char[] buffer = new char[8192];
+
+        private int pos, len;
+
+        private final StringBuilder token = new StringBuilder(32);
+
+
+        Input(java.io.Reader in){
+            super();
+            this.in = in;
+        }
+
+
+        /**
+         * @return Next non white space character without consuming
+         * it, or -1 at end of input
+         */
+        int peek()
+            throws IOException
+        {
+            while (true){
+                if (this.pos == this.len){
+                    this.len = this.in.read(this.buffer,0,this.buffer.length);
+                    this.pos = 0;
+                    if (0 >= this.len){
+                        this.len = 0;
+                        return -1;
+                    }
+                }
+                final char c = this.buffer[this.pos];
+                if (' ' == c || '\n' == c || '\r' == c || '\t' == c)
+                    this.pos += 1;
+                else
+                    return c;
+            }
+        }
+        /**
+         * @return Next character, including white space
+         */
+        private char next()
+            throws IOException
+        {
+            if (this.pos == this.len){
+                this.len = this.in.read(this.buffer,0,this.buffer.length);
+                this.pos = 0;
+                if (0 >= this.len){
+                    this.len = 0;
+                    throw new IllegalArgumentException("Unexpected end of input");
+                }
+            }
+            return this.buffer[this.pos++];
+        }
+        void expect(char c)
+            throws IOException
+        {
+            final int p = this.peek();
+            if (c == p)
+                this.pos += 1;
+            else
+                throw new IllegalArgumentException(String.format("Expected '%c' found '%s'",c,((-1 == p)?("EOF"):(String.valueOf((char)p)))));
+        }
+        /**
+         * Consume a separating comma, or the closing character
+         *
+         * @return More members or elements follow
+         */
+        boolean more(char close)
+            throws IOException
+        {
+            final int p = this.peek();
+            if (',' == p){
+                this.pos += 1;
+                return true;
+            }
+            else {
+                this.expect(close);
+                return false;
+            }
+        }
+        String string()
+            throws IOException
+        {
+            this.expect('"');
+
+            final StringBuilder string = new StringBuilder();
+            while (true){
+                final char c = this.next();
+                if ('"' == c)
+                    return string.toString();
+                else if ('\\' == c){
+                    final char e = this.next();
+                    switch(e){
+                    case 'b':
+                        string.append('\b');
+                        break;
+                    case 'f':
+                        string.append('\f');
+                        break;
+                    case 'n':
+                        string.append('\n');
+                        break;
+                    case 'r':
+                        string.append('\r');
+                        break;
+                    case 't':
+                        string.append('\t');
+                        break;
+                    case 'u':
+                        {
+                            int u = 0;
+                            for (int cc = 0; cc < 4; cc++){
+                                final int d = Character.digit(this.next(),16);
+                                if (0 > d)
+                                    throw new IllegalArgumentException("Unicode escape");
+                                else
+                                    u = (u<<4)|d;
+                            }
+                            string.append((char)u);
+                        }
+                        break;
+                    default:
+                        string.append(e);
+                        break;
+                    }
+                }
+                else
+                    string.append(c);
+            }
+        }
+        /**
+         * Parse a number, exactly for the shortest decimal form of a
+         * float
+         */
+        float number()
+            throws IOException
+        {
+            final StringBuilder token = this.token;
+            token.setLength(0);
+
+            this.peek();
+
+            boolean negative = false;
+            long mantissa = 0L;
+            int exponent = 0, digits = 0, significant = 0;
+
+            char c = this.next();
+            token.append(c);
+            if ('-' == c || '+' == c){
+                negative = ('-' == c);
+                c = this.next();
+                token.append(c);
+            }
+            while ('0' <= c && '9' >= c){
+                if (18 > significant){
+                    mantissa = (mantissa*10L)+(c-'0');
+                    if (0L != mantissa)
+                        significant += 1;
+                }
+                else
+                    exponent += 1;
+                digits += 1;
+                c = this.next();
+                token.append(c);
+            }
+            if ('.' == c){
+                c = this.next();
+                token.append(c);
+                while ('0' <= c && '9' >= c){
+                    if (18 > significant){
+                        mantissa = (mantissa*10L)+(c-'0');
+                        exponent -= 1;
+                        if (0L != mantissa)
+                            significant += 1;
+                    }
+                    digits += 1;
+                    c = this.next();
+                    token.append(c);
+                }
+            }
+            if (0 == digits)
+                throw new IllegalArgumentException(String.format("Number '%s'",token));
+
+            else if ('e' == c || 'E' == c){
+                c = this.next();
+                token.append(c);
+                boolean en = false;
+                if ('-' == c || '+' == c){
+                    en = ('-' == c);
+                    c = this.next();
+                    token.append(c);
+                }
+                int e = 0, ed = 0;
+                while ('0' <= c && '9' >= c){
+                    if (1000 > e)
+                        e = (e*10)+(c-'0');
+                    ed += 1;
+                    c = this.next();
+                    token.append(c);
+                }
+                if (0 == ed)
+                    throw new IllegalArgumentException(String.format("Number '%s'",token));
+                else
+                    exponent += (en)?(-e):(e);
+            }
+            /*
+             * Terminal character is not consumed
+             */
+            this.pos -= 1;
+            token.setLength(token.length()-1);
+
+            if (0L == mantissa)
+                return (negative)?(-0.0f):(0.0f);
+
+            else if (Pow10.length <= Math.abs(exponent) || 18 <= significant)
+
+                return Float.parseFloat(token.toString());
+            else {
+                double value = (double)mantissa;
+                if (0 < exponent)
+                    value *= Pow10[exponent];
+                else if (0 > exponent)
+                    value /= Pow10[-exponent];
+
+                return (float)((negative)?(-value):(value));
+            }
+        }
+        /**
+         * @param length Expected length, or -1
+         */
+        float[] numbers(int length)
+            throws IOException
+        {
+            float[] array = new float[(0 < length)?(length):(256)];
+            int count = 0;
+
+            this.expect('[');
+            if (']' != this.peek()){
+                do {
+                    if (count == array.length){
+                        final float[] copier = new float[count<<1];
+                        System.arraycopy(array,0,copier,0,count);
+                        array = copier;
+                    }
+                    array[count++] = this.number();
+                }
+                while (this.more(']'));
+            }
+            else
+                this.expect(']');
+
+            return Trim(array,count);
+        }
+        /**
+         * @param length Expected length, or -1
+         */
+        float[] b64(int length)
+            throws IOException
+        {
+            byte[] bytes = new byte[(0 < length)?(length<<2):(1024)];
+            int count = 0;
+
+            final byte[] src = new byte[4];
+            int sx = 0;
+
+            this.expect('"');
+            while (true){
+                final char c = this.next();
+                if ('"' == c)
+                    break;
+                else if (' ' == c || '\n' == c || '\r' == c || '\t' == c || '\\' == c)
+                    continue;
+                else {
+                    src[sx++] = (byte)c;
+                    if (4 == sx){
+                        sx = 0;
+                        if ((count+3) > bytes.length){
+                            final byte[] copier = new byte[Math.max((count+3),(bytes.length<<1))];
+                            System.arraycopy(bytes,0,copier,0,count);
+                            bytes = copier;
+                        }
+                        final int n = B64.decode4to3(src,0,bytes,count);
+                        if (0 >= n)
+                            throw new IllegalArgumentException("Model base 64");
+                        else
+                            count += n;
+                    }
+                }
+            }
+            if (0 != sx || 0 != (count & 3))
+                throw new IllegalArgumentException("Model base 64 length");
+            else {
+                final float[] array = new float[count>>2];
+
+                ByteBuffer.wrap(bytes,0,count).order(ByteOrder.LITTLE_ENDIAN).asFloatBuffer().get(array);
+
+                return array;
+            }
+        }
+        /**
+         * Skip any value
+         */
+        void skip()
+            throws IOException
+        {
+            final int p = this.peek();
+            switch(p){
+            case '{':
+                this.pos += 1;
+                if ('}' != this.peek()){
+                    do {
+                        this.string();
+                        this.expect(':');
+                        this.skip();
+                    }
+                    while (this.more('}'));
+                }
+                else
+                    this.expect('}');
+                break;
+            case '[':
+                this.pos += 1;
+                if (']' != this.peek()){
+                    do {
+                        this.skip();
+                    }
+                    while (this.more(']'));
+                }
+                else
+                    this.expect(']');
+                break;
+            case '"':
+                this.string();
+                break;
+            case 't':
+                this.literal("true");
+                break;
+            case 'f':
+                this.literal("false");
+                break;
+            case 'n':
+                this.literal("null");
+                break;
+            default:
+                this.number();
+                break;
+            }
+        }
+        private void literal(String literal)
+            throws IOException
+        {
+            for (int cc = 0, count = literal.length(); cc < count; cc++){
+
+                if (literal.charAt(cc) != this.next())
+                    throw new IllegalArgumentException(String.format("Expected '%s'",literal));
+            }
+        }
+    }
+    private final static float[] Trim(float[] array, int count){
+        if (count == array.length)
+            return array;
+        else {
+            final float[] copier = new float[count];
+            System.arraycopy(array,0,copier,0,count);
+            return copier;
+        }
+    }
+
+
+    private AirfoilJson(){
+        super();
+    }
+}
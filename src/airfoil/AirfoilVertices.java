@@ -22,9 +22,9 @@ import static airfoil.Geometry.*;
 
 import fv3.font.GlyphVector;
 import static fv3.math.Abstract.*;
-import fv3.math.Matrix;
 import fv3.math.VertexArray;
 
+import java.nio.FloatBuffer;
 
 /**
  * A kind of {@link Airfoil} {@link Geometry}
@@ -71,9 +71,21 @@ public final class AirfoilVertices
     private float tex, lex, y, chord, section[];
 
     private boolean initialized;
+    /**
+     * Shared immutable instance
+     * @see #snapshot()
+     */
+    private boolean snapshot;
+    /**
+     * Modification count
+     * @see #version()
+     */
+    private volatile int version;
 
     private float[] modelMesh, modelMeshDescription, sectionMesh;
 
+    private volatile ChordIndex sectionIndex;
+
     private String description;
 
     private GlyphVector description3;
@@ -92,6 +104,27 @@ public final class AirfoilVertices
 
         this.model = new float[this.vp];
     }
+    /**
+     * @param np Number of vertices, as of a source of any geometry
+     * @param model Initialized vertices of length (np x dimension),
+     * retained
+     * @see Library
+     */
+    AirfoilVertices(Geometry geometry, int np, float[] model){
+        super();
+        this.geometry = geometry;
+        this.np = np;
+        this.ne = ((np-1)/2)-1;
+        this.vp = (this.np*geometry.dimension.number);
+        this.ve = (this.ne*geometry.dimension.number);
+
+        if (this.vp == model.length){
+            this.model = model;
+            this.initialized = true;
+        }
+        else
+            throw new IllegalArgumentException(String.format("%d/%d",model.length,this.vp));
+    }
     public AirfoilVertices(AirfoilVertices from, Geometry to){
         super();
         this.geometry = to;
@@ -102,114 +135,87 @@ public final class AirfoilVertices
 
         this.model = new float[this.vp];
 
-        VertexArray vary = new VertexArray(this.np);
-
-
-        float domMin = Float.MAX_VALUE, domMax = Float.MIN_VALUE;
-        {
-            /*
-             * Copy In
-             */
-            final float[] frArray = from.getModelVertices();
-            final float[] toArray = vary.array();
-
-            final int frDom = from.geometry.domain();
-            final int frRan = from.geometry.range();
-
-            final int toDom = to.domain();
-            final int toRan = to.range();
-
-            final int frCC = from.geometry.dimension.number;
-            final int toCC = to.dimension.number;
+        Convert(from.geometry,from.getModelVertices(),to,this.model);
+    }
 
 
-            for (int frC = 0, toC = 0; toC < this.vp; frC += frCC, toC += toCC){
+    /**
+     * Each geometric conversion is a kernel over the source array
+     * into the destination array, combining the dimensional copy
+     * with any rotation.
+     * 
+     * @param fr Source geometry
+     * @param frArray Source vertices
+     * @param to Destination geometry
+     * @param toArray Destination vertices, with the same number of
+     * vertices as the source
+     */
+    public final static void Convert(Geometry fr, float[] frArray, Geometry to, float[] toArray){
+        switch(fr){
 
-                final float dom = frArray[frC+frDom];
-                toArray[toC+toDom] = dom;
-                toArray[toC+toRan] = frArray[frC+frRan];
+        case TB2:
 
-                domMin = Math.min(dom,domMin);
-                domMax = Math.max(dom,domMax);
-            }
-        }
-        final float domMid = Z((domMin+domMax)/2.0f);
-        {
-            /*
-             * Each geometric conversion may be defined by a rotation,
-             * and the dimensional copy-out that follows.
-             */
-            final Matrix conversion = new Matrix();
-            switch(from.geometry){
+            switch(to){
 
             case TB2:
+                System.arraycopy(frArray,0,toArray,0,frArray.length);
+                return;
 
-                switch(to){
-
-                case TB2:
-                    break;
-
-                case TB3:
-                    /*
-                     * Origin centered airfoil
-                     * See #transform(float,float)
-                     */
-                    if (0.0f != domMid)
-                        conversion.translate(from.geometry.domain.ordinal(),-domMid);
-
-                    conversion.rotate(from.geometry.independent.ordinal(),PI);
-
-                    break;
+            case TB3:
+                ConvertTB2TB3(frArray,toArray);
+                return;
 
-                default:
-                    throw new IllegalArgumentException(String.format("Undefined conversion from '%s' to '%s'",from.geometry.name(),to.name()));
-                }
+            default:
                 break;
+            }
+            break;
 
-            case TB3:
-                switch(to){
-
-                case TB3:
-                    break;
+        case TB3:
+            switch(to){
 
-                default:
-                    throw new IllegalArgumentException(String.format("Undefined conversion from '%s' to '%s'",from.geometry.name(),to.name()));
-                }
-                break;
+            case TB3:
+                System.arraycopy(frArray,0,toArray,0,frArray.length);
+                return;
 
             default:
-                throw new IllegalArgumentException(String.format("Undefined conversion from '%s' to '%s'",from.geometry.name(),to.name()));
+                break;
             }
+            break;
 
-            vary.transform(conversion);
+        default:
+            break;
         }
+        throw new IllegalArgumentException(String.format("Undefined conversion from '%s' to '%s'",fr.name(),to.name()));
+    }
+    /**
+     * Model to section: origin centered airfoil, rotated by PI about
+     * the model independent axis (Z) so that the domain is reversed
+     * and the range (model Y) becomes the section Z.
+     * 
+     * See #transform(float,float)
+     */
+    private final static void ConvertTB2TB3(float[] frArray, float[] toArray){
+        final int frEnd = frArray.length;
 
-        if (Geometry.VertexDimension.XYZ == this.geometry.dimension){
-
-            vary.copy(this.model);
-        }
-        else {
-            /*
-             * Copy Out
-             */
-            final float[] frArray = vary.array();
-            final float[] toArray = this.model;
+        float domMin = Float.MAX_VALUE, domMax = -Float.MAX_VALUE;
 
-            final int frDom = from.geometry.domain();
-            final int frRan = from.geometry.range();
+        for (int frC = X; frC < frEnd; frC += 2){
 
-            final int toDom = to.domain();
-            final int toRan = to.range();
+            final float dom = frArray[frC];
 
-            final int frCC = 3;
-            final int toCC = to.dimension.number;
+            if (dom < domMin)
+                domMin = dom;
+            if (dom > domMax)
+                domMax = dom;
+        }
 
+        final float domMid = Z((domMin+domMax)/2.0f);
 
-            for (int frC = 0, toC = 0; toC < this.vp; frC += frCC, toC += toCC){
+        for (int frC = 0, toC = 0; frC < frEnd; frC += 2, toC += 3){
 
-                toArray[toC+toDom] = frArray[frC+frDom];
-                toArray[toC+toRan] = frArray[frC+frRan];
-            }
+            toArray[toC+X] = (domMid-frArray[frC+X]);
+            toArray[toC+Y] = 0.0f;
+            toArray[toC+Z] = frArray[frC+Y];
         }
     }
 
@@ -275,6 +281,7 @@ public final class AirfoilVertices
         return this.description;
     }
     public AirfoilVertices setDescription(String d){
+        this.mutable();
         this.description = d;
         return this;
     }
@@ -292,6 +299,57 @@ public final class AirfoilVertices
     public boolean isInitialized(){
         return this.initialized;
     }
+    /**
+     * @return This instance is a shared immutable snapshot
+     * @see #snapshot()
+     */
+    public boolean isSnapshot(){
+        return this.snapshot;
+    }
+    /**
+     * A snapshot may be shared between threads and users, as by
+     * {@link AirfoilCache}.  Its mutators throw an illegal state
+     * exception, and its model and section arrays must not be
+     * modified.  The {@link #clone() clone} of a snapshot is
+     * mutable.
+     * 
+     * @return Immutable copy of this vertex set, or this snapshot
+     */
+    public AirfoilVertices snapshot(){
+        if (this.snapshot)
+            return this;
+        else {
+            AirfoilVertices snapshot = this.clone();
+            snapshot.snapshot = true;
+            return snapshot;
+        }
+    }
+    /**
+     * The version changes with each modification of this vertex set
+     * via its mutators, and is employed to retain derived data like
+     * the {@link Airfoil#getMesh(Geometry) mesh}.  Writes into the
+     * arrays returned by {@link #getModelVertices()} and {@link
+     * #getSectionVertices()} are not counted.
+     * 
+     * @return Modification count
+     */
+    public int version(){
+        return this.version;
+    }
+    /**
+     * Precedes each modification, and increments the {@link
+     * #version() version}.
+     * 
+     * @exception java.lang.IllegalStateException Modifying a snapshot
+     */
+    protected final void mutable()
+        throws java.lang.IllegalStateException
+    {
+        if (this.snapshot)
+            throw new IllegalStateException("Snapshot");
+        else
+            this.version += 1;
+    }
     public boolean hasSection(){
         return (this.initialized && (null != this.section) && (0.0f != this.y));
     }
@@ -325,17 +383,21 @@ public final class AirfoilVertices
             throw new Error();
     }
     public AirfoilVertices setModelVertices(float[] model){
+        this.mutable();
         if (model.length == vp){
             this.initialized = true;
             this.model = model;
+            this.modelMesh = null;
             return this;
         }
         else
             throw new IllegalArgumentException(String.format("%d/%d",model.length,this.vp));
     }
     public AirfoilVertices copyModelVertices(float[] model){
+        this.mutable();
         if (model.length == vp){
             this.model = model.clone();
+            this.modelMesh = null;
             return this;
         }
         else
@@ -366,6 +428,7 @@ public final class AirfoilVertices
      * @param y Scaled Y coordinate for this section
      */
     public final void translate(double y){
+        this.mutable();
 
         this.y = (float)y;
     }
@@ -384,6 +447,23 @@ public final class AirfoilVertices
      * @see #translate(float)
      */
     public final void transform(float tex, float chord){
+
+        this.transform(tex,chord,null);
+    }
+    /**
+     * Transform into a destination buffer, which becomes the section
+     * array of this vertex set.
+     * 
+     * @param tex Scaled X coordinate of trailing edge
+     * @param chord Scaled chord of this section
+     * @param section Destination of length {@link #vp}, for example
+     * the prior {@link #getSectionVertices() section} for its reuse
+     * in place, or null to allocate
+     *
+     * @see #transform(float,float)
+     */
+    public final void transform(float tex, float chord, float[] section){
+        this.mutable();
         /*
          * Origin centered airfoil
          * See #ctor()
@@ -392,40 +472,131 @@ public final class AirfoilVertices
         this.lex = -tex;
         this.chord = chord;
 
-        final float s = chord;
+        if (null == section)
+            section = new float[this.vp];
+        else if (section.length != this.vp)
+            throw new IllegalArgumentException(String.format("%d/%d",section.length,this.vp));
 
-        final float[] vertices = this.copyModelVertices();
-        switch(this.geometry.dimension.number){
+        Transform(this.geometry,this.model,this.y,chord,section,0);
+
+        this.section = section;
+        this.sectionIndex = null;
+        this.sectionMesh = null;
+    }
+    /**
+     * Span sweep: stamp a sequence of stations from the model into
+     * one contiguous array, without a vertex set per station.
+     * Station 'n' occupies [n*vp,(n+1)*vp) in the output.
+     * 
+     * As in {@link #transform(float,float)}, the section is origin
+     * centered so the trailing edge does not displace its vertices.
+     * 
+     * @param y Span coordinate of each station (ignored in 2D)
+     * @param chord Scaled chord of each station
+     * @param out Destination of at least (stations*vp) elements, or
+     * null to allocate
+     * @return Output array
+     */
+    public final float[] sweep(float[] y, float[] chord, float[] out){
+        if (null == y || null == chord || y.length != chord.length)
+            throw new IllegalArgumentException();
+        else {
+            final int count = y.length;
+            final int len = (count*this.vp);
+            if (null == out)
+                out = new float[len];
+            else if (out.length < len)
+                throw new IllegalArgumentException(String.format("%d/%d",out.length,len));
+
+            for (int cc = 0, ofs = 0; cc < count; cc++, ofs += this.vp){
+
+                Transform(this.geometry,this.model,y[cc],chord[cc],out,ofs);
+            }
+            return out;
+        }
+    }
+    /**
+     * @see #sweep(float[],float[],float[])
+     */
+    public final float[] sweep(Airfoil.Key[] stations, float[] out){
+        if (null == stations)
+            throw new IllegalArgumentException();
+        else {
+            final int count = stations.length;
+            final int len = (count*this.vp);
+            if (null == out)
+                out = new float[len];
+            else if (out.length < len)
+                throw new IllegalArgumentException(String.format("%d/%d",out.length,len));
+
+            for (int cc = 0, ofs = 0; cc < count; cc++, ofs += this.vp){
+
+                final Airfoil.Key station = stations[cc];
+
+                Transform(this.geometry,this.model,station.y,station.chord,out,ofs);
+            }
+            return out;
+        }
+    }
+    /**
+     * Scale model vertices by the chord into the destination, with
+     * the span coordinate in 3D.
+     * 
+     * @param ofs Destination offset
+     */
+    public final static void Transform(Geometry geometry, float[] model, float y, float s, float[] section, int ofs){
+        final int vp = model.length;
+
+        switch(geometry.dimension.number){
 
         case 2:
             {
-                for (int xx = 0, yy = 1; xx < this.vp; xx += 2, yy += 2){
+                for (int xx = 0, yy = 1; xx < vp; xx += 2, yy += 2){
 
-                    vertices[xx] *= s;
-                    vertices[yy] *= s;
+                    section[ofs+xx] = model[xx] * s;
+                    section[ofs+yy] = model[yy] * s;
                 }
             }
             break;
         case 3:
             {
-                for (int xx = 0, yy = 1, zz = 2; xx < this.vp; xx += 3, yy += 3, zz += 3){
+                for (int xx = 0, yy = 1, zz = 2; xx < vp; xx += 3, yy += 3, zz += 3){
 
-                    vertices[xx] *= s;
-                    vertices[yy] = this.y;
-                    vertices[zz] *= s;
+                    section[ofs+xx] = model[xx] * s;
+                    section[ofs+yy] = y;
+                    section[ofs+zz] = model[zz] * s;
                 }
             }
             break;
         default:
-            throw new Error(this.geometry.dimension.name());
+            throw new Error(geometry.dimension.name());
         }
-
-        this.section = vertices;
     }
     public float getSectionY(){
 
         return this.y;
     }
+    /**
+     * @return Point query index over the section, built once per
+     * {@link #transform(float,float) transform}
+     *
+     * @exception java.lang.IllegalStateException Missing section
+     */
+    public ChordIndex getSectionIndex()
+        throws java.lang.IllegalStateException
+    {
+        ChordIndex index = this.sectionIndex;
+        if (null == index){
+            final float[] section = this.section;
+            if (null != section){
+                index = new ChordIndex(this,section);
+                this.sectionIndex = index;
+            }
+            else
+                throw new IllegalStateException("Missing section");
+        }
+        return index;
+    }
     /**
      * Intersection
      * 
@@ -433,44 +604,64 @@ public final class AirfoilVertices
      * @param y Section coordinate in Y
      * @param z Section coordinate in Z
      *
-     * @return Coordinate in Z
+     * @return Coordinate in Z, or NaN for X outside the chord
      * 
      * @see #init(int)
      * @see #transform(float,float)
      * @see #translate(float)
+     * @see ChordIndex
      */
     public final float getSectionZ(float x, float y, float z){
 
-        final ChordIterator it = this.chordIteratorSection();
-        try {
-            if (it.in(x)){
-
-                for (ChordVertex cv: it){
-
-                    final ChordVertex.In in = cv.in(x);
-
-                    switch (in){
-                    case Current:
-                    case Domain:
-                        return cv.getVertexZ(in,x,y,z);
-
-                    case None:
-                        break;
-                    }
-                }
-
-                throw new Geometry.Interpolation.Exception(String.format("x % 4.4f y % 4.4f z % 4.4f",x,y,z));
-            }
+        return this.getSectionIndex().get(x,z);
+    }
+    /**
+     * Batch intersection
+     * 
+     * @param x Section coordinates in X
+     * @param y Section coordinates in Y, may be null
+     * @param z Section coordinates in Z
+     * @param out Coordinates in Z, or NaN for X outside the chord
+     *
+     * @see #getSectionZ(float,float,float)
+     */
+    public final void getSectionZ(float[] x, float[] y, float[] z, float[] out){
+        if (null == x || null == z || null == out)
+            throw new IllegalArgumentException();
+        else {
+            final int len = x.length;
+            if (len != z.length || len != out.length || (null != y && len != y.length))
+                throw new IllegalArgumentException(String.format("%d/%d/%d",len,z.length,out.length));
             else
-                throw new Geometry.Interpolation.Exception(String.format("!(%s) x % 4.4f y % 4.4f z % 4.4f",it.inf(x),x,y,z));
+                this.getSectionIndex().get(x,z,out,0,len);
         }
-        finally {
-            it.destroy();
+    }
+    /**
+     * Batch intersection over the remaining elements of each buffer.
+     * Buffer positions are not modified.
+     * 
+     * @param x Section coordinates in X
+     * @param y Section coordinates in Y, may be null
+     * @param z Section coordinates in Z
+     * @param out Coordinates in Z, or NaN for X outside the chord
+     *
+     * @see #getSectionZ(float,float,float)
+     */
+    public final void getSectionZ(FloatBuffer x, FloatBuffer y, FloatBuffer z, FloatBuffer out){
+        if (null == x || null == z || null == out)
+            throw new IllegalArgumentException();
+        else {
+            final int len = x.remaining();
+            if (len != z.remaining() || len != out.remaining() || (null != y && len != y.remaining()))
+                throw new IllegalArgumentException(String.format("%d/%d/%d",len,z.remaining(),out.remaining()));
+            else
+                this.getSectionIndex().get(x,z,out);
         }
     }
     public AirfoilVertices clone(){
 
         AirfoilVertices clone = (AirfoilVertices)super.clone();
+        clone.snapshot = false;
         clone.model = clone.model.clone();
         if (null != clone.section){
             clone.section = clone.section.clone();
@@ -513,6 +704,22 @@ public final class AirfoilVertices
             throw new Error(this.geometry.dimension.name());
         }
     }
+    /**
+     * @return GL Lines over shared vertices
+     * @see #createModelMeshLines()
+     */
+    public IndexedMesh createModelMeshIndexed(){
+
+        return IndexedMesh.Lines(this.geometry.dimension.number,this.model);
+    }
+    /**
+     * @return GL Lines over shared vertices
+     * @see #createSectionMeshLines()
+     */
+    public IndexedMesh createSectionMeshIndexed(){
+
+        return IndexedMesh.Lines(this.geometry.dimension.number,this.section);
+    }
     /**
      * @return GL Lines
      */
@@ -569,63 +776,40 @@ public final class AirfoilVertices
     }
     public void dispose(){
     }
+    /**
+     * List the section vertices when present, and otherwise the
+     * model vertices, to the standard output in the gnuplot format.
+     */
     public void list(){
-        System.out.println("#");
-        System.out.println("# Airfoil data listing");
-        System.out.println("#");
-
-        if (null != this.description){
-            System.out.printf( "# Airfoil: %s%n",this.description);
-            System.out.println("#");
-        }
 
-        System.out.printf( "# Geometry: %s%n",this.geometry);
-        System.out.println("#");
-        System.out.println("# [vertex_index] (a_position)");
-        System.out.println("#");
-
-        final float[] vertices;
-        if (null != this.section)
-            vertices = this.section;
-        else
-            vertices = this.model;
-
-        switch(this.geometry.dimension.number){
-
-        case 2:
-            {
-                final int verticesCount = vertices.length/2;
-                float[] a_position = new float[2];
-
-                for (int vv = 0, ofs; vv < verticesCount; vv++){
-                    ofs = (vv*2);
-                    System.arraycopy(vertices,ofs,a_position,0,2);
-
-                    if (this.ve == ofs)
-                        System.out.printf("[%02d] (% 5.4g, % 5.4g) [ve]%n",vv,a_position[0],a_position[1]);
-                    else
-                        System.out.printf("[%02d] (% 5.4g, % 5.4g)%n",vv,a_position[0],a_position[1]);
-                }
-            }
-            break;
-        case 3:
-            {
-                final int verticesCount = vertices.length/3;
-                float[] a_position = new float[3];
+        this.list(Export.Format.Gnuplot);
+    }
+    /**
+     * @see Export
+     */
+    public void list(Export.Format format){
 
-                for (int vv = 0, ofs; vv < verticesCount; vv++){
-                    ofs = (vv*3);
-                    System.arraycopy(vertices,ofs,a_position,0,3);
+        final Export out = Export.Out(format);
+        try {
+            out.comment("");
+            out.comment("Airfoil data listing");
+            out.comment("");
 
-                    if (this.ve == ofs)
-                        System.out.printf("[%02d] (% 5.4g, % 5.4g, % 5.4g) [ve]%n",vv,a_position[0],a_position[1],a_position[2]);
-                    else
-                        System.out.printf("[%02d] (% 5.4g, % 5.4g, % 5.4g)%n",vv,a_position[0],a_position[1],a_position[2]);
-                }
+            if (null != this.description){
+                out.comment("Airfoil: "+this.description);
+                out.comment("");
             }
-            break;
-        default:
-            throw new Error(this.geometry.dimension.name());
+            out.comment("Geometry: "+this.geometry);
+            out.comment("ve: "+(this.ve/this.geometry.dimension.number));
+            out.comment("");
+            out.comment("a_position");
+            out.comment("");
+
+            out.write(this);
+            out.flush();
+        }
+        catch (java.io.IOException exc){
+            throw new IllegalStateException(exc);
         }
     }
     public int compareTo(AirfoilVertices that){
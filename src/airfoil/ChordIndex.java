@@ -0,0 +1,568 @@
+/*
+ * Spacetime Standalone Airfoil
+ * Copyright (C) 2013, John Pritchard.
+ *
+ * This program is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+package airfoil;
+
+import java.nio.FloatBuffer;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Immutable point query index over the two surfaces of an airfoil
+ * geometry.  Each surface is held as a pair of primitive arrays,
+ * domain and range, sorted in ascending domain order.
+ *
+ * Queries are answered by bisection in O(log n), or from a previous
+ * result with {@link #hunt(float[],float,int)} for neighboring
+ * queries, without allocation.  A query outside the domain of the
+ * chord returns NaN.
+ *
+ * Batch queries over primitive arrays or array backed buffers are
+ * ordered by chord position, to share a cursor between neighbors.
+ * Direct buffers are queried in place, in buffer order, without
+ * allocation.  Batch queries employ the {@link Parallel#Pool} at or
+ * above the threshold in system property "airfoil.ChordIndex.Parallel".
+ *
+ * @see AirfoilVertices#getSectionIndex()
+ * @see ChordIterator
+ */
+public final class ChordIndex
+    extends Object
+{
+    /**
+     * Batch size at or above which a batch query is parallel
+     */
+    public final static int ParallelThreshold = Parallel.Threshold("airfoil.ChordIndex.Parallel",(1<<16));
+    /**
+     * Number of queries in the unit of parallel work
+     */
+    private final static int Leaf = (1<<14);
+    /**
+     * Maximum number of buckets ordering the queries in a unit of
+     * work
+     */
+    private final static int Buckets = 1024;
+
+    public final Geometry geometry;
+    /**
+     * Number of vertices in each surface
+     */
+    public final int length;
+    /**
+     * Chord domain bounds
+     */
+    public final float min, max;
+
+    private final float[] topD, topR, botD, botR;
+
+
+    /**
+     * @param airfoil Vertex set layout
+     * @param source Vertices in the layout and geometry of the
+     * airfoil, e.g. model or section vertices
+     */
+    public ChordIndex(AirfoilVertices airfoil, float[] source){
+        super();
+        if (null == airfoil || null == source)
+            throw new IllegalArgumentException();
+        else if (source.length != airfoil.vp)
+            throw new IllegalArgumentException(String.format("%d/%d",source.length,airfoil.vp));
+        else {
+            this.geometry = airfoil.geometry;
+            this.length = (airfoil.ne+1);
+
+            final int dim = this.geometry.dimension.number;
+            final int dom = this.geometry.domain();
+            final int ran = this.geometry.range();
+            /*
+             * The first surface is [0,ne] and the second surface is
+             * [ne,np-1] in path order
+             */
+            final float[] aD = new float[this.length], aR = new float[this.length];
+            final float[] bD = new float[this.length], bR = new float[this.length];
+
+            for (int cc = 0, a = 0, b = ((airfoil.np-1)*dim); cc < this.length; cc++, a += dim, b -= dim){
+
+                aD[cc] = source[a+dom];
+                aR[cc] = source[a+ran];
+                bD[cc] = source[b+dom];
+                bR[cc] = source[b+ran];
+            }
+            Sort(aD,aR);
+            Sort(bD,bR);
+
+            if (this.geometry.isBottom){
+                this.botD = aD;
+                this.botR = aR;
+                this.topD = bD;
+                this.topR = bR;
+            }
+            else {
+                this.topD = aD;
+                this.topR = aR;
+                this.botD = bD;
+                this.botR = bR;
+            }
+            this.min = Math.max(this.topD[0],this.botD[0]);
+            this.max = Math.min(this.topD[this.length-1],this.botD[this.length-1]);
+        }
+    }
+
+
+    /**
+     * @param x Chord domain coordinate
+     * @return Domain coordinate is within the closed interval of the
+     * chord
+     */
+    public boolean in(float x){
+
+        return (this.min <= x && x <= this.max);
+    }
+    /**
+     * @param x Domain coordinate
+     * @param z Range coordinate selecting the top surface when
+     * non-negative, otherwise the bottom surface
+     * @return Interpolated range coordinate, or NaN for a domain
+     * coordinate outside the chord
+     */
+    public float get(float x, float z){
+
+        if (0.0f <= z)
+            return this.top(x);
+        else
+            return this.bottom(x);
+    }
+    /**
+     * @return Interpolated range coordinate on the top surface, or
+     * NaN
+     */
+    public float top(float x){
+
+        if (this.in(x))
+            return Interpolate(this.topD,this.topR,x,Search(this.topD,x));
+        else
+            return Float.NaN;
+    }
+    /**
+     * @return Interpolated range coordinate on the bottom surface, or
+     * NaN
+     */
+    public float bottom(float x){
+
+        if (this.in(x))
+            return Interpolate(this.botD,this.botR,x,Search(this.botD,x));
+        else
+            return Float.NaN;
+    }
+    /**
+     * Cursor variant of {@link #get(float,float)} for a sequence of
+     * neighboring queries.
+     *
+     * @param cursor Two element array holding the top and bottom
+     * surface segment indeces of the previous query, or negative
+     * values for none.  Updated by this query.
+     */
+    public float get(float x, float z, int[] cursor){
+
+        if (this.in(x)){
+            if (0.0f <= z){
+
+                final int lo = Hunt(this.topD,x,cursor[0]);
+                cursor[0] = lo;
+                return Interpolate(this.topD,this.topR,x,lo);
+            }
+            else {
+                final int lo = Hunt(this.botD,x,cursor[1]);
+                cursor[1] = lo;
+                return Interpolate(this.botD,this.botR,x,lo);
+            }
+        }
+        else
+            return Float.NaN;
+    }
+    /**
+     * Batch form of {@link #get(float,float)}.
+     *
+     * @param x Domain coordinates
+     * @param z Range coordinates selecting surfaces
+     * @param out Interpolated range coordinates, or NaN
+     * @param ofs Offset into each array
+     * @param len Number of queries
+     */
+    public void get(float[] x, float[] z, float[] out, int ofs, int len){
+        if (null == x || null == z || null == out)
+            throw new IllegalArgumentException();
+        else if (0 > ofs || 0 > len || (ofs+len) > x.length || (ofs+len) > z.length || (ofs+len) > out.length)
+            throw new IllegalArgumentException(String.format("%d+%d",ofs,len));
+        else if (Parallel.Is(len,ParallelThreshold))
+
+            Parallel.Pool.invoke(new Batch(this,x,ofs,z,ofs,out,ofs,len));
+        else
+            this.query(x,ofs,z,ofs,out,ofs,len);
+    }
+    /**
+     * Batch form of {@link #get(float,float)} over the remaining
+     * elements of each buffer.  Buffer positions are not modified.
+     *
+     * @param x Domain coordinates
+     * @param z Range coordinates selecting surfaces
+     * @param out Interpolated range coordinates, or NaN
+     */
+    public void get(FloatBuffer x, FloatBuffer z, FloatBuffer out){
+        if (null == x || null == z || null == out)
+            throw new IllegalArgumentException();
+        else {
+            final int len = x.remaining();
+            if (z.remaining() < len || out.remaining() < len)
+                throw new IllegalArgumentException(String.format("%d/%d/%d",len,z.remaining(),out.remaining()));
+
+            else if (x.hasArray() && z.hasArray() && out.hasArray()){
+
+                final int xo = (x.arrayOffset()+x.position());
+                final int zo = (z.arrayOffset()+z.position());
+                final int oo = (out.arrayOffset()+out.position());
+
+                if (Parallel.Is(len,ParallelThreshold))
+
+                    Parallel.Pool.invoke(new Batch(this,x.array(),xo,z.array(),zo,out.array(),oo,len));
+                else
+                    this.query(x.array(),xo,z.array(),zo,out.array(),oo,len);
+            }
+            else if (Parallel.Is(len,ParallelThreshold))
+
+                Parallel.Pool.invoke(new Batch(this,x,z,out,0,len));
+            else
+                this.query(x,z,out,0,len);
+        }
+    }
+    public float[] getTopDomain(){
+        return this.topD.clone();
+    }
+    public float[] getTopRange(){
+        return this.topR.clone();
+    }
+    public float[] getBottomDomain(){
+        return this.botD.clone();
+    }
+    public float[] getBottomRange(){
+        return this.botR.clone();
+    }
+    /**
+     * @see #hunt(float[],float,int)
+     */
+    public int hunt(boolean top, float x, int guess){
+
+        if (top)
+            return Hunt(this.topD,x,guess);
+        else
+            return Hunt(this.botD,x,guess);
+    }
+
+
+    /**
+     * Serial batch query.  Queries are ordered into buckets by chord
+     * position, and then answered in bucket order with a shared
+     * cursor.
+     */
+    private void query(float[] x, int xo, float[] z, int zo, float[] out, int oo, int len){
+        if (0 < len){
+            final int nb = Math.max(1,Math.min(Buckets,(len>>3)));
+            final int[] count = new int[nb+1];
+            final int[] order = new int[len];
+            final float scale = (nb/(this.max-this.min));
+
+            for (int cc = 0; cc < len; cc++){
+
+                count[this.bucket(x[xo+cc],scale,nb)+1] += 1;
+            }
+            for (int bb = 0; bb < nb; bb++){
+
+                count[bb+1] += count[bb];
+            }
+            for (int cc = 0; cc < len; cc++){
+
+                order[count[this.bucket(x[xo+cc],scale,nb)]++] = cc;
+            }
+
+            final int[] cursor = {-1,-1};
+
+            for (int oc = 0; oc < len; oc++){
+
+                final int cc = order[oc];
+
+                out[oo+cc] = this.get(x[xo+cc],z[zo+cc],cursor);
+            }
+        }
+    }
+    /**
+     * Serial batch query over buffers without accessible arrays.
+     * Queries are answered in buffer order by absolute get and put,
+     * with the surface cursors in locals, without allocation.
+     */
+    private void query(FloatBuffer x, FloatBuffer z, FloatBuffer out, int ofs, int len){
+
+        final int xo = (x.position()+ofs);
+        final int zo = (z.position()+ofs);
+        final int oo = (out.position()+ofs);
+
+        final float[] topD = this.topD, topR = this.topR;
+        final float[] botD = this.botD, botR = this.botR;
+
+        int top = -1, bot = -1;
+
+        for (int cc = 0; cc < len; cc++){
+
+            final float xc = x.get(xo+cc);
+
+            if (!this.in(xc))
+                out.put((oo+cc),Float.NaN);
+
+            else if (0.0f <= z.get(zo+cc)){
+
+                top = Hunt(topD,xc,top);
+
+                out.put((oo+cc),Interpolate(topD,topR,xc,top));
+            }
+            else {
+                bot = Hunt(botD,xc,bot);
+
+                out.put((oo+cc),Interpolate(botD,botR,xc,bot));
+            }
+        }
+    }
+    /**
+     * @return Bucket index in [0,nb)
+     */
+    private int bucket(float x, float scale, int nb){
+
+        if (x > this.min){
+
+            final int b = (int)((x-this.min)*scale);
+            if (b < nb)
+                return b;
+            else
+                return (nb-1);
+        }
+        else
+            return 0;
+    }
+    /**
+     * Parallel batch query
+     */
+    private final static class Batch
+        extends RecursiveAction
+    {
+        private static final long serialVersionUID = 1L;
+
+        private final ChordIndex index;
+
+        private final float[] x, z, out;
+
+        private final FloatBuffer bx, bz, bout;
+
+        private final int xo, zo, oo, len;
+
+
+        Batch(ChordIndex index, float[] x, int xo, float[] z, int zo, float[] out, int oo, int len){
+            super();
+            this.index = index;
+            this.x = x;
+            this.xo = xo;
+            this.z = z;
+            this.zo = zo;
+            this.out = out;
+            this.oo = oo;
+            this.len = len;
+            this.bx = null;
+            this.bz = null;
+            this.bout = null;
+        }
+        Batch(ChordIndex index, FloatBuffer x, FloatBuffer z, FloatBuffer out, int ofs, int len){
+            super();
+            this.index = index;
+            this.bx = x;
+            this.bz = z;
+            this.bout = out;
+            this.xo = ofs;
+            this.zo = ofs;
+            this.oo = ofs;
+            this.len = len;
+            this.x = null;
+            this.z = null;
+            this.out = null;
+        }
+
+
+        protected void compute(){
+            if (Leaf >= this.len){
+
+                if (null != this.x)
+                    this.index.query(this.x,this.xo,this.z,this.zo,this.out,this.oo,this.len);
+                else
+                    this.index.query(this.bx,this.bz,this.bout,this.xo,this.len);
+            }
+            else {
+                final int a = (this.len>>1);
+                final int b = (this.len-a);
+
+                if (null != this.x)
+                    invokeAll(new Batch(this.index,this.x,this.xo,this.z,this.zo,this.out,this.oo,a),
+                              new Batch(this.index,this.x,(this.xo+a),this.z,(this.zo+a),this.out,(this.oo+a),b));
+                else
+                    invokeAll(new Batch(this.index,this.bx,this.bz,this.bout,this.xo,a),
+                              new Batch(this.index,this.bx,this.bz,this.bout,(this.xo+a),b));
+            }
+        }
+    }
+    /**
+     * Bisection for the segment containing 'x'.
+     *
+     * @param xa Ascending domain
+     * @param x Domain coordinate within the bounds of 'xa'
+     * @return Index of the lower vertex of the segment, in (0 &lt;= lo
+     * &lt; xa.length-1)
+     */
+    public final static int Search(float[] xa, float x){
+
+        return Bisect(xa,x,0,(xa.length-1));
+    }
+    /**
+     * Numerical Recipes "hunt": expand a bracket from a previous
+     * result, then bisect within the bracket.  The cost is
+     * O(log d) for the distance 'd' from the guess.
+     *
+     * @param xa Ascending domain
+     * @param x Domain coordinate within the bounds of 'xa'
+     * @param guess Previous result, or negative for none
+     * @return Index of the lower vertex of the segment, in (0 &lt;= lo
+     * &lt; xa.length-1)
+     */
+    public final static int Hunt(float[] xa, float x, int guess){
+        final int last = (xa.length-1);
+
+        if (guess < 0 || guess >= last)
+
+            return Bisect(xa,x,0,last);
+
+        else if (x >= xa[guess]){
+
+            if (x <= xa[guess+1])
+                return guess;
+            else {
+                int lo = guess, hi, inc = 1;
+                while (true){
+                    hi = (lo+inc);
+                    if (hi >= last){
+                        hi = last;
+                        break;
+                    }
+                    else if (x <= xa[hi])
+                        break;
+                    else {
+                        lo = hi;
+                        inc <<= 1;
+                    }
+                }
+                return Bisect(xa,x,lo,hi);
+            }
+        }
+        else {
+            int lo, hi = guess, inc = 1;
+            while (true){
+                lo = (hi-inc);
+                if (lo <= 0){
+                    lo = 0;
+                    break;
+                }
+                else if (x >= xa[lo])
+                    break;
+                else {
+                    hi = lo;
+                    inc <<= 1;
+                }
+            }
+            return Bisect(xa,x,lo,hi);
+        }
+    }
+    /**
+     * @param lo Inclusive lower bound, with (xa[lo] &lt;= x)
+     * @param hi Inclusive upper bound, with (x &lt;= xa[hi])
+     */
+    private final static int Bisect(float[] xa, float x, int lo, int hi){
+
+        while (1 < (hi-lo)){
+
+            final int k = ((hi+lo)>>>1);
+
+            if (xa[k] > x)
+                hi = k;
+            else
+                lo = k;
+        }
+        return lo;
+    }
+    /**
+     * Linear interpolation over the segment [lo,lo+1]
+     */
+    private final static float Interpolate(float[] xa, float[] ya, float x, int lo){
+
+        final int hi = Math.min(lo+1,xa.length-1);
+
+        final float x0 = xa[lo], x1 = xa[hi];
+
+        if (x1 == x0)
+            return ya[lo];
+        else {
+            final float y0 = ya[lo];
+
+            return (y0+((ya[hi]-y0)*((x-x0)/(x1-x0))));
+        }
+    }
+    /**
+     * Sort the domain (with its range) into ascending order.  The
+     * surfaces are very nearly ordered already, so a reversal and an
+     * insertion sort are practically linear.
+     */
+    private final static void Sort(float[] d, float[] r){
+        final int len = d.length;
+        if (d[0] > d[len-1]){
+
+            for (int a = 0, b = (len-1); a < b; a++, b--){
+                float t = d[a];
+                d[a] = d[b];
+                d[b] = t;
+                t = r[a];
+                r[a] = r[b];
+                r[b] = t;
+            }
+        }
+        for (int i = 1; i < len; i++){
+            final float di = d[i];
+            if (di < d[i-1]){
+                final float ri = r[i];
+                int j = (i-1);
+                while (-1 < j && d[j] > di){
+                    d[j+1] = d[j];
+                    r[j+1] = r[j];
+                    j -= 1;
+                }
+                d[j+1] = di;
+                r[j+1] = ri;
+            }
+        }
+    }
+}
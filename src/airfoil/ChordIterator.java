@@ -89,84 +89,25 @@ public final class ChordIterator
 
                 final int vlen = (this.length*this.dimension);
 
-                final float[] top = new float[vlen];
-                final float[] bot = new float[vlen];
+                final float[] first = new float[vlen];
+                final float[] second = new float[vlen];
+                /*
+                 * Copy first surface
+                 */
+                System.arraycopy(source,0,first,0,vlen);
+                /*
+                 * Interpolate second surface for identical domain
+                 * coordinates and ordering
+                 */
+                Reinterpolate(airfoil,source,first,second);
 
                 if (this.geometry.isBottom){
-                    /*
-                     * Copy first surface
-                     */
-                    System.arraycopy(source,0,bot,0,vlen);
-
-                    /*
-                     * Interpolate second surface for identical domain
-                     * coordinates and ordering
-                     */
-                    if (3 == this.dimension){
-
-                        int check;
-
-                        for (int bc = 0, tc = 0; tc < vlen; ){
-
-                            final float bx = bot[bc+X];
-                            final float by = bot[bc+Y];
-                            final float bz = bot[bc+Z];
-
-                            if (0.0f == bz){
-
-                                bc += 3;
-
-                                top[tc++] = bx;
-                                top[tc++] = by;
-                                top[tc++] = bz;
-                            }
-                            else {
-                                check = bc;
-
-                                float sx0 = source[X], sx1;
-                                float sy0 = source[Y], sy1;
-                                float sz0 = source[Z], sz1;
-
-                                search:
-                                for (int sc = (source.length-3); sc >= airfoil.ve; sc -= 3){
-
-                                    sx1 = source[sc+X];
-                                    sy1 = source[sc+Y];
-                                    sz1 = source[sc+Z];
-
-                                    if ((sx0 <= bx && bx <= sx1)||(sx0 >= bx && bx >= sx1)){
-
-                                        bc += 3;
-
-                                        top[tc++] = bx;
-                                        top[tc++] = by;
-                                        top[tc++] = LIY(sx0,sz0,sx1,sz1,bx);
-
-                                        break search;
-                                    }
-                                    
-                                    sx0 = sx1;
-                                    sy0 = sy1;
-                                    sz0 = sz1;
-                                }
-                                /*
-                                 */
-                                if (check == bc){
-
-                                    throw new Error(String.valueOf(bc));
-                                }
-                            }
-                        }
-
-                        this.top = top;
-                        this.bot = bot;
-                    }
-                    else {
-                        throw new UnsupportedOperationException("TODO");
-                    }
+                    this.bot = first;
+                    this.top = second;
                 }
                 else {
-                    throw new UnsupportedOperationException("TODO");
+                    this.top = first;
+                    this.bot = second;
                 }
             }
         }
@@ -269,68 +210,132 @@ public final class ChordIterator
         else
             throw new java.util.NoSuchElementException(String.valueOf(idx));
     }
+    /**
+     * List the chord vertices to the standard output in the gnuplot
+     * format.
+     */
     public void list(){
 
-        System.out.println("#");
-        System.out.println("# ChordIterator data listing");
-        System.out.println("#");
-        System.out.printf( "# Geometry: %s%n",this.geometry);
-        System.out.println("#");
-        System.out.println("# [vertex_index] (a_position)");
-        System.out.println("#");
+        this.list(Export.Format.Gnuplot);
+    }
+    /**
+     * @see Export
+     */
+    public void list(Export.Format format){
+
+        final Export out = Export.Out(format);
+        try {
+            out.comment("");
+            out.comment("ChordIterator data listing");
+            out.comment("");
+            out.comment("Geometry: "+this.geometry);
+            out.comment("ve: "+(this.airfoil.ve/this.dimension));
+            out.comment("");
+            out.comment("a_position");
+            out.comment("");
+
+            out.write(this.geometry.name(),this.getVertices(),this.dimension);
+            out.flush();
+        }
+        catch (java.io.IOException exc){
+            throw new IllegalStateException(exc);
+        }
+    }
+
+    /**
+     * Reinterpolate the second surface of the source path in the
+     * domain coordinates of the first surface.
+     * 
+     * The second surface is traversed from the first edge, at the
+     * end of the path, toward the interior edge.  Both surfaces are
+     * ordered in the domain from the first edge, so a single cursor
+     * over the segments of the second surface advances with the
+     * vertices of the first surface, for a merge in linear time.
+     * 
+     * @param source Path of the airfoil geometry
+     * @param first Copy of the first surface, [0,ne] in path order
+     * @param second Output of the second surface reinterpolation
+     */
+    private final static void Reinterpolate(AirfoilVertices airfoil, float[] source, float[] first, float[] second){
+
+        final Geometry geometry = airfoil.geometry;
+        final int dim = geometry.dimension.number;
+        final int dom = geometry.domain();
+        final int ran = geometry.range();
+        final int vlen = first.length;
+        final int send = (source.length-dim);
+        final int ve = airfoil.ve;
+        /*
+         * Second surface segment cursor, as the offset of the segment
+         * end vertex.  The first segment begins from the first vertex
+         * in the path, and ends at the last.
+         */
+        int cursor = send;
 
-        final float[] vertices = this.getVertices();
+        for (int fc = 0; fc < vlen; fc += dim){
 
+            System.arraycopy(first,fc,second,fc,dim);
 
-        switch(this.geometry.dimension.number){
+            final float fd = first[fc+dom];
 
-        case 2:
-            {
-                final int verticesCount = vertices.length/2;
-                float[] a_position = new float[2];
+            if (0.0f != first[fc+ran]){
 
-                for (int vv = 0, ofs; vv < verticesCount; vv++){
-                    ofs = (vv*2);
-                    System.arraycopy(vertices,ofs,a_position,0,2);
+                int sc = cursor;
+                boolean found = false;
+                /*
+                 * Forward from the cursor, and then again from the
+                 * first edge should the surface fold in the domain
+                 */
+                search:
+                for (int pass = 0; pass < 2; pass++){
 
-                    if (this.airfoil.ve == ofs)
-                        System.out.printf("[%02d] (% 5.4g, % 5.4g) [ve]%n",vv,a_position[0],a_position[1]);
-                    else
-                        System.out.printf("[%02d] (% 5.4g, % 5.4g)%n",vv,a_position[0],a_position[1]);
-                }
-            }
-            break;
-        case 3:
-            {
-                final int verticesCount = vertices.length/3;
-                float[] a_position = new float[3];
+                    final int term = (0 == pass)?(ve):(cursor);
+
+                    for (; sc >= term; sc -= dim){
 
-                for (int vv = 0, ofs; vv < verticesCount; vv++){
-                    ofs = (vv*3);
-                    System.arraycopy(vertices,ofs,a_position,0,3);
+                        final int sp = (sc == send)?(0):(sc+dim);
 
-                    if (this.airfoil.ve == ofs)
-                        System.out.printf("[%02d] (% 5.4g, % 5.4g, % 5.4g) [ve]%n",vv,a_position[0],a_position[1],a_position[2]);
-                    else
-                        System.out.printf("[%02d] (% 5.4g, % 5.4g, % 5.4g)%n",vv,a_position[0],a_position[1],a_position[2]);
+                        final float sd0 = source[sp+dom];
+                        final float sd1 = source[sc+dom];
+
+                        if ((sd0 <= fd && fd <= sd1)||(sd0 >= fd && fd >= sd1)){
+
+                            second[fc+ran] = LIY(sd0,source[sp+ran],sd1,source[sc+ran],fd);
+
+                            cursor = sc;
+                            found = true;
+                            break search;
+                        }
+                    }
+                    sc = send;
+                }
+                if (!found){
+
+                    throw new Error(String.valueOf(fc));
                 }
             }
-            break;
-        default:
-            throw new Error(this.geometry.dimension.name());
         }
     }
-
     /**
      * Print iterator
+     * 
+     * Arguments number of points and {@link Export.Format format}
+     * (default Gnuplot).
      */
     public final static void main(String[] argv){
 
         int np = 20;
 
+        Export.Format format = Export.Format.Gnuplot;
+
         if (0 < argv.length){
 
             np = Integer.parseInt(argv[0]);
+
+            if (1 < argv.length){
+
+                format = Export.Format.For(argv[1]);
+            }
         }
 
         final NACA naca = new NACA();
@@ -339,12 +344,12 @@ public final class ChordIterator
 
             final AirfoilVertices section = naca.generate(Geometry.Model,Geometry.Section);
             {
-                section.list();
+                section.list(format);
             }
             {
                 final ChordIterator iterator = section.chordIteratorModel();
 
-                iterator.list();
+                iterator.list(format);
             }
             System.exit(0);
         }
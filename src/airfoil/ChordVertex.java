@@ -58,6 +58,10 @@ public final class ChordVertex
     private final float[] a, b;
 
     public final int chordIndex;
+    /**
+     * Offset of this vertex in the surface arrays
+     */
+    private final int offset;
     /**
      * This point in the chord represents a single edge vertex,
      * otherwise a pair of chord vertices.  
@@ -75,6 +79,7 @@ public final class ChordVertex
         this.dimension = this.geometry.dimension.number;
         this.chordIndex = chordIndex;
         this.edge = (0 == chordIndex || chordIndex == this.airfoil.ne);
+        this.offset = (chordIndex*this.dimension);
         this.a = a;
         this.b = b;
     }
@@ -130,9 +135,12 @@ public final class ChordVertex
             }
         }
     }
+    /**
+     * @return Pair of vertices in this point of the chord
+     */
     public float[] getVertices(){
 
-        return Cat(this.a,this.b);
+        return Cat(this.vertex(this.a),this.vertex(this.b));
     }
     public float getVertexZ(In in, float x, float y, float z){
         switch(in){
@@ -180,7 +188,7 @@ public final class ChordVertex
     {
         if (this.edge)
 
-            return this.a.clone();
+            return this.vertex(this.a);
         else 
             throw new IllegalStateException();
     }
@@ -196,27 +204,34 @@ public final class ChordVertex
 
             throw new IllegalStateException();
         else 
-            return Cat(this.a,this.b);
+            return Cat(this.vertex(this.a),this.vertex(this.b));
     }
     public float getX(){
 
-        return this.a[X];
+        return this.a[this.offset+X];
     }
     public float getY(){
 
-        return this.a[Y];
+        return this.a[this.offset+Y];
     }
+    /**
+     * @return Range coordinate, Z in a section and Y in a model
+     */
     public float getZ(){
 
-        return this.a[Z];
+        return this.a[this.offset+this.geometry.range()];
     }
+    /**
+     * @return Range coordinate of the surface, Z in a section and Y
+     * in a model
+     */
     public float getZ(Geometry.SurfaceOrder s){
 
         if (s == this.geometry.path.surface)
 
-            return this.a[Z];
+            return this.a[this.offset+this.geometry.range()];
         else
-            return this.b[Z];
+            return this.b[this.offset+this.geometry.range()];
     }
     public float getTopZ(){
         if (this.edge)
@@ -224,9 +239,9 @@ public final class ChordVertex
             throw new IllegalStateException();
 
         else if (this.geometry.isTop)
-            return this.a[Z];
+            return this.a[this.offset+this.geometry.range()];
         else
-            return this.b[Z];
+            return this.b[this.offset+this.geometry.range()];
     }
     public float getBottomZ(){
         if (this.edge)
@@ -234,9 +249,9 @@ public final class ChordVertex
             throw new IllegalStateException();
 
         else if (this.geometry.isBottom)
-            return this.a[Z];
+            return this.a[this.offset+this.geometry.range()];
         else
-            return this.b[Z];
+            return this.b[this.offset+this.geometry.range()];
     }
     public float[] getTop()
         throws java.lang.IllegalStateException
@@ -246,9 +261,9 @@ public final class ChordVertex
             throw new IllegalStateException();
 
         else if (this.geometry.isTop)
-            return this.a.clone();
+            return this.vertex(this.a);
         else
-            return this.b.clone();
+            return this.vertex(this.b);
     }
     public float[] getBottom()
         throws java.lang.IllegalStateException
@@ -258,9 +273,9 @@ public final class ChordVertex
             throw new IllegalStateException();
 
         else if (this.geometry.isBottom)
-            return this.a.clone();
+            return this.vertex(this.a);
         else
-            return this.b.clone();
+            return this.vertex(this.b);
     }
     public void destroy(){
         ChordIterator chord = this.chord;
@@ -273,4 +288,15 @@ public final class ChordVertex
 
         return this.chord.peek(this.chordIndex+r);
     }
+    /**
+     * @return Copy of this vertex from a surface array
+     */
+    private float[] vertex(float[] surface){
+
+        final float[] vertex = new float[this.dimension];
+
+        System.arraycopy(surface,this.offset,vertex,0,this.dimension);
+
+        return vertex;
+    }
 }
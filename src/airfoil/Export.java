@@ -0,0 +1,547 @@
+/*
+ * Spacetime Standalone Airfoil
+ * Copyright (C) 2013, John Pritchard.
+ *
+ * This program is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+package airfoil;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * Text export of vertex sets through a large buffer to an NIO
+ * channel.
+ *
+ * Each vertex is one line of its components, formatted by {@link
+ * #Decimal(float,byte[],int) Decimal} as the shortest decimal that
+ * reads back to the same float.  A {@link #write(String,float[],int)
+ * block} of vertices is a section or a model, in path order except
+ * for Dat.
+ *
+ * <pre>
+ * CSV      header line of component names, and comma separated rows
+ * Dat      name line before each block, and space separated rows
+ *          of chord and thickness coordinates in Selig order, from
+ *          the trailing edge over the upper surface
+ * Gnuplot  comment lines, space separated rows, and a blank line
+ *          between blocks for splot
+ * </pre>
+ *
+ * A {@link #write(AirfoilVertices,Airfoil.Key[]) span} of stations
+ * is written in one pass, transforming each station into one reused
+ * section array.
+ *
+ * The system property "airfoil.Export.Buffer" is the size of the
+ * output buffer in bytes (default one megabyte).  An export is
+ * employed from one thread.
+ */
+public final class Export
+    extends Object
+    implements java.io.Closeable
+{
+    /**
+     * Text export format
+     */
+    public enum Format {
+        CSV,
+        Dat,
+        Gnuplot;
+
+        /**
+         * @param name Format name, ignoring case
+         * @exception java.lang.IllegalArgumentException Unknown name
+         */
+        public final static Format For(String name){
+            for (Format format: Format.values()){
+
+                if (format.name().equalsIgnoreCase(name))
+                    return format;
+            }
+            throw new IllegalArgumentException(name);
+        }
+    }
+
+    public final static int Buffer = Parallel.Threshold("airfoil.Export.Buffer",(1<<20));
+    /**
+     * Maximum bytes of one formatted float
+     */
+    public final static int Number = 16;
+    /**
+     * Maximum bytes of one formatted row
+     */
+    private final static int Row = (3*(Number+1));
+
+    private final static double[] Pow10 = {
+        1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+        1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
+    private final static int[] Int10 = {
+        1, 10, 100, 1000, 10000, 100000, 1000000, 10000000, 100000000, 1000000000
+    };
+
+
+    /**
+     * @return Export to a new file
+     */
+    public final static Export Open(File file, Format format)
+        throws IOException
+    {
+        return new Export(new FileOutputStream(file).getChannel(),format);
+    }
+    /**
+     * @return Export to the standard output, which is flushed and not
+     * closed by the caller
+     */
+    public final static Export Out(Format format){
+
+        return new Export(Channels.newChannel(System.out),format);
+    }
+
+
+    public final Format format;
+
+    private final WritableByteChannel channel;
+
+    private final ByteBuffer buffer;
+
+    private final byte[] row = new byte[Row];
+
+    private int blocks;
+
+    private float[] section;
+
+
+    public Export(WritableByteChannel channel, Format format){
+        this(channel,format,Buffer);
+    }
+    /**
+     * @param channel Output
+     * @param format Text format
+     * @param buffer Output buffer size in bytes
+     */
+    public Export(WritableByteChannel channel, Format format, int buffer){
+        super();
+        if (null == channel || null == format || Row > buffer)
+            throw new IllegalArgumentException();
+        else {
+            this.channel = channel;
+            this.format = format;
+            this.buffer = ByteBuffer.allocateDirect(buffer);
+        }
+    }
+
+
+    /**
+     * @return Number of blocks written
+     */
+    public int blocks(){
+        return this.blocks;
+    }
+    /**
+     * Comment line in the gnuplot format, and otherwise nothing.
+     */
+    public Export comment(String line)
+        throws IOException
+    {
+        if (Format.Gnuplot == this.format){
+
+            if (0 == line.length())
+                this.text("#\n");
+            else {
+                this.text("# ");
+                this.text(line);
+                this.text("\n");
+            }
+        }
+        return this;
+    }
+    /**
+     * Section vertices when present, and otherwise model vertices,
+     * named by the description.
+     */
+    public Export write(AirfoilVertices airfoil)
+        throws IOException
+    {
+        float[] vertices = airfoil.getSectionVertices();
+        if (null == vertices)
+            vertices = airfoil.getModelVertices();
+
+        String name = airfoil.getDescription();
+        if (null == name)
+            name = airfoil.geometry.name();
+
+        return this.write(name,vertices,airfoil.geometry.dimension.number);
+    }
+    /**
+     * Sections of the model placed at each station, in one pass.
+     *
+     * @param profile Unplaced model vertices
+     * @param stations Span stations in output order
+     * @see AirfoilVertices#sweep(Airfoil.Key[],float[])
+     */
+    public Export write(AirfoilVertices profile, Airfoil.Key[] stations)
+        throws IOException
+    {
+        final float[] model = profile.getModelVertices();
+        final int dim = profile.geometry.dimension.number;
+
+        float[] section = this.section;
+        if (null == section || section.length != model.length){
+            section = new float[model.length];
+            this.section = section;
+        }
+        for (Airfoil.Key station: stations){
+
+            AirfoilVertices.Transform(profile.geometry,model,station.y,station.chord,section,0);
+
+            this.write(String.format("y % 4.4f lex % 4.4f tex % 4.4f",station.y,station.lex,station.tex),
+                       section,dim);
+        }
+        return this;
+    }
+    /**
+     * Every station of the wing, in ascending span order.
+     */
+    public Export write(Wing wing)
+        throws IOException
+    {
+        return this.write(wing.profile,wing.keys());
+    }
+    /**
+     * @param name Block name
+     * @param vertices Path of vertices
+     * @param dimension Components per vertex, two or three
+     */
+    public Export write(String name, float[] vertices, int dimension)
+        throws IOException
+    {
+        if (2 > dimension || 3 < dimension)
+            throw new IllegalArgumentException(String.valueOf(dimension));
+        else {
+            switch(this.format){
+            case CSV:
+                if (0 == this.blocks){
+
+                    if (2 == dimension)
+                        this.text("x,y\n");
+                    else
+                        this.text("x,y,z\n");
+                }
+                this.rows(vertices,dimension,(byte)',');
+                break;
+            case Dat:
+                this.text(name);
+                this.text("\n");
+                this.profile(vertices,dimension);
+                break;
+            case Gnuplot:
+                if (0 != this.blocks)
+                    this.text("\n");
+
+                this.comment(name);
+                this.rows(vertices,dimension,(byte)' ');
+                break;
+            default:
+                throw new Error(this.format.name());
+            }
+            this.blocks += 1;
+            return this;
+        }
+    }
+    /**
+     * Write the buffer to the channel
+     */
+    public void flush()
+        throws IOException
+    {
+        final ByteBuffer buffer = this.buffer;
+        buffer.flip();
+        while (buffer.hasRemaining()){
+
+            this.channel.write(buffer);
+        }
+        buffer.clear();
+    }
+    /**
+     * Flush and close the channel
+     */
+    public void close()
+        throws IOException
+    {
+        try {
+            this.flush();
+        }
+        finally {
+            this.channel.close();
+        }
+    }
+    private void rows(float[] vertices, int dimension, byte separator)
+        throws IOException
+    {
+        final ByteBuffer buffer = this.buffer;
+        final byte[] row = this.row;
+
+        for (int ofs = 0, end = (vertices.length-dimension+1); ofs < end; ofs += dimension){
+
+            int x = Decimal(vertices[ofs],row,0);
+            row[x++] = separator;
+            x = Decimal(vertices[ofs+1],row,x);
+            if (3 == dimension){
+                row[x++] = separator;
+                x = Decimal(vertices[ofs+2],row,x);
+            }
+            row[x++] = '\n';
+
+            if (x > buffer.remaining())
+                this.flush();
+
+            buffer.put(row,0,x);
+        }
+    }
+    /**
+     * Selig order rows of (domain, range) components: the path is
+     * reversed to run from the trailing edge over the upper surface
+     * to the leading edge, and back under the lower surface.
+     */
+    private void profile(float[] vertices, int dimension)
+        throws IOException
+    {
+        final ByteBuffer buffer = this.buffer;
+        final byte[] row = this.row;
+        final int range = (dimension-1);
+
+        for (int ofs = (vertices.length-dimension); 0 <= ofs; ofs -= dimension){
+
+            int x = Decimal(vertices[ofs],row,0);
+            row[x++] = ' ';
+            x = Decimal(vertices[ofs+range],row,x);
+            row[x++] = '\n';
+
+            if (x > buffer.remaining())
+                this.flush();
+
+            buffer.put(row,0,x);
+        }
+    }
+    private void text(String string)
+        throws IOException
+    {
+        final ByteBuffer buffer = this.buffer;
+
+        for (int cc = 0, count = string.length(); cc < count; cc++){
+
+            if (!buffer.hasRemaining())
+                this.flush();
+
+            final char c = string.charAt(cc);
+            if (0x80 > c)
+                buffer.put((byte)c);
+            else
+                buffer.put((byte)'?');
+        }
+    }
+
+
+    /**
+     * Write the shortest decimal which reads back to the value, as
+     * by {@link java.lang.Float#parseFloat(String)}.
+     *
+     * A decimal of more significant digits is at least as near the
+     * value as the nearest decimal of fewer digits, so the number of
+     * digits is binary searched in [1,9] for the least which reads
+     * back.  The read back is one exact power of ten scaling in double
+     * precision, which is exact for float unless it lands on a float
+     * rounding midpoint.  The rare midpoint, and magnitudes beyond the
+     * exact powers of ten, are formatted by {@link
+     * java.lang.Float#toString(float)}.
+     *
+     * Plain notation is used for decimal exponents in [-5,9), and
+     * otherwise scientific notation, as "1.25E-7".
+     *
+     * @param dst Destination of at most {@link #Number} bytes
+     * @return Offset following the number
+     */
+    public final static int Decimal(float value, byte[] dst, int ofs){
+
+        if (0.0f == value){
+
+            if (0 != Float.floatToRawIntBits(value))
+                dst[ofs++] = '-';
+
+            dst[ofs++] = '0';
+            return ofs;
+        }
+        else if (value != value || Float.isInfinite(value) ||
+                 1e-14f > Math.abs(value) || 1e22f < Math.abs(value))
+        {
+            return Fallback(value,dst,ofs);
+        }
+        else {
+            final double v = Math.abs((double)value);
+            /*
+             * Decimal exponent of the leading digit, from the binary
+             * exponent (log10(2) ~ 1233/4096) corrected by at most one
+             */
+            int e = ((Math.getExponent(v)*1233)>>12);
+            {
+                final double m = (0 <= e)?(v/Pow10[e]):(v*Pow10[-e]);
+                if (10.0 <= m)
+                    e += 1;
+                else if (1.0 > m)
+                    e -= 1;
+            }
+            long d = -1L;
+            int p = 0;
+
+            for (int lo = 1, hi = 9; lo <= hi; ){
+
+                final int mid = ((lo+hi)>>>1);
+                final long c = Candidate(v,mid,e);
+                if (-2L == c)
+                    return Fallback(value,dst,ofs);
+
+                else if (0L <= c){
+                    d = c;
+                    p = mid;
+                    hi = (mid-1);
+                }
+                else
+                    lo = (mid+1);
+            }
+            if (0L > d)
+                return Fallback(value,dst,ofs);
+            else {
+                if (0.0f > value)
+                    dst[ofs++] = '-';
+                /*
+                 * Rounded up to the next power of ten
+                 */
+                if (d == Int10[p])
+                    return Digits(Int10[p-1],p,(e+1),dst,ofs);
+                else
+                    return Digits((int)d,p,e,dst,ofs);
+            }
+        }
+    }
+    /**
+     * @param v Positive value of float precision
+     * @param p Significant digits
+     * @param e Decimal exponent of the leading digit
+     * @return Nearest significand of 'p' digits when it reads back to
+     * the value, -1 when it does not, or -2 for a float rounding
+     * midpoint
+     */
+    private final static long Candidate(double v, int p, int e){
+
+        final int s = (p-1-e);
+
+        final long d = Math.round((0 <= s)?(v*Pow10[s]):(v/Pow10[-s]));
+
+        final double c = (0 <= s)?(d/Pow10[s]):(d*Pow10[-s]);
+
+        if (0x10000000L == (Double.doubleToRawLongBits(c) & 0x1FFFFFFFL))
+            return -2L;
+        else if ((float)c == (float)v)
+            return d;
+        else
+            return -1L;
+    }
+    /**
+     * @param d Significand of 'p' digits
+     * @param e Decimal exponent of the leading digit
+     */
+    private final static int Digits(int d, int p, int e, byte[] dst, int ofs){
+        /*
+         * Strip trailing zeros
+         */
+        while (1 < p && 0 == (d % 10)){
+            d /= 10;
+            p -= 1;
+        }
+        if (0 <= e && 9 > e){
+
+            if (p <= (e+1)){
+
+                ofs = Digits(d,p,dst,ofs);
+                for (int z = (e+1-p); 0 < z; z--){
+                    dst[ofs++] = '0';
+                }
+            }
+            else {
+                final int f = (p-e-1);
+                final int ip = (d/Int10[f]);
+
+                ofs = Digits(ip,(e+1),dst,ofs);
+                dst[ofs++] = '.';
+                ofs = Digits((d-(ip*Int10[f])),f,dst,ofs);
+            }
+        }
+        else if (-5 <= e && 0 > e){
+
+            dst[ofs++] = '0';
+            dst[ofs++] = '.';
+            for (int z = (-e-1); 0 < z; z--){
+                dst[ofs++] = '0';
+            }
+            ofs = Digits(d,p,dst,ofs);
+        }
+        else {
+            final int lead = (d/Int10[p-1]);
+
+            dst[ofs++] = (byte)('0'+lead);
+            if (1 < p){
+                dst[ofs++] = '.';
+                ofs = Digits((d-(lead*Int10[p-1])),(p-1),dst,ofs);
+            }
+            dst[ofs++] = 'E';
+            if (0 > e){
+                dst[ofs++] = '-';
+                e = -e;
+            }
+            if (10 <= e)
+                dst[ofs++] = (byte)('0'+(e/10));
+
+            dst[ofs++] = (byte)('0'+(e%10));
+        }
+        return ofs;
+    }
+    /**
+     * Exactly 'p' digits, with leading zeros
+     */
+    private final static int Digits(int d, int p, byte[] dst, int ofs){
+
+        for (int x = (ofs+p-1); x >= ofs; x--){
+
+            dst[x] = (byte)('0'+(d%10));
+            d /= 10;
+        }
+        return (ofs+p);
+    }
+    private final static int Fallback(float value, byte[] dst, int ofs){
+
+        final String string = Float.toString(value);
+        for (int cc = 0, count = string.length(); cc < count; cc++){
+
+            dst[ofs++] = (byte)string.charAt(cc);
+        }
+        return ofs;
+    }
+}
@@ -507,7 +507,16 @@ public enum Geometry
             return new Interpolation.Interpolation3(this,x,y,z);
         }
         else {
-            throw new UnsupportedOperationException("TODO");
+
+            final float pD = p.getX();
+            final float nD = n.getX();
+
+            final float pR = p.getZ(s);
+            final float nR = n.getZ(s);
+
+            final float r = MathAbstract.LIY(pD,pR,nD,nR,x);
+
+            return new Interpolation.Interpolation2(this,x,r);
         }
     }
     public float[] toArray(Interpolation a, 
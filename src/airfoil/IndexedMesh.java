@@ -0,0 +1,227 @@
+/*
+ * Spacetime Standalone Airfoil
+ * Copyright (C) 2013, John Pritchard.
+ *
+ * This program is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+package airfoil;
+
+import com.badlogic.gdx.graphics.Mesh;
+import com.badlogic.gdx.graphics.VertexAttribute;
+
+/**
+ * Shared vertex mesh: unique vertices with an index buffer, in
+ * place of the duplicated vertices of a {@link
+ * fv3.math.VertexArray.Type#Lines lines} array.
+ *
+ * Indices are short for meshes of up to {@link #ShortLimit}
+ * vertices, and int above.  As GL ES index buffers are short, a mesh
+ * with int indices is {@link #expand() expanded} to unindexed
+ * vertices by {@link #createMesh(VertexAttribute[])}.
+ */
+public final class IndexedMesh
+    extends Object
+{
+    /**
+     * Number of vertices addressed by unsigned short indices
+     */
+    public final static int ShortLimit = 0x10000;
+
+    /**
+     * Shared vertex polyline from (X,Y) or (X,Y,Z) vertices
+     *
+     * @param dimension Components per source vertex, two or three
+     * @param source Vertices
+     * @return GL_LINES over (X,Y,Z) vertices, with Z zero for two
+     * dimensional sources
+     */
+    public final static IndexedMesh Lines(int dimension, float[] source){
+
+        final int count = (source.length/dimension);
+
+        final float[] vertices;
+        switch(dimension){
+        case 2:
+            {
+                vertices = new float[count*3];
+
+                for (int sx = 0, tx = 0; sx < source.length; sx += 2, tx += 3){
+
+                    vertices[tx] = source[sx];
+                    vertices[tx+1] = source[sx+1];
+                }
+            }
+            break;
+        case 3:
+            vertices = source.clone();
+            break;
+        default:
+            throw new IllegalArgumentException(String.valueOf(dimension));
+        }
+
+        final int segments = Math.max(0,count-1);
+
+        final int indices = (segments*2);
+
+        if (count <= ShortLimit){
+
+            final short[] shorts = new short[indices];
+
+            for (int cc = 0, ix = 0; cc < segments; cc++){
+
+                shorts[ix++] = (short)cc;
+                shorts[ix++] = (short)(cc+1);
+            }
+            return new IndexedMesh(3,vertices,shorts,null);
+        }
+        else {
+            final int[] ints = new int[indices];
+
+            for (int cc = 0, ix = 0; cc < segments; cc++){
+
+                ints[ix++] = cc;
+                ints[ix++] = (cc+1);
+            }
+            return new IndexedMesh(3,vertices,null,ints);
+        }
+    }
+    /**
+     * @param components Floats per vertex
+     * @param vertices Unique vertices
+     * @param indices Index buffer, stored as short when the number
+     * of vertices permits
+     */
+    public final static IndexedMesh Create(int components, float[] vertices, int[] indices){
+
+        if (vertices.length/components <= ShortLimit){
+
+            final int count = indices.length;
+
+            final short[] shorts = new short[count];
+
+            for (int cc = 0; cc < count; cc++){
+
+                shorts[cc] = (short)indices[cc];
+            }
+            return new IndexedMesh(components,vertices,shorts,null);
+        }
+        else
+            return new IndexedMesh(components,vertices,null,indices);
+    }
+
+
+    /**
+     * Floats per vertex
+     */
+    public final int components;
+    /**
+     * Number of vertices
+     */
+    public final int count;
+
+    public final float[] vertices;
+    /**
+     * Index buffer when {@link #isShort()}, otherwise null
+     */
+    public final short[] shorts;
+    /**
+     * Index buffer when not {@link #isShort()}, otherwise null
+     */
+    public final int[] ints;
+
+
+    IndexedMesh(int components, float[] vertices, short[] shorts, int[] ints){
+        super();
+        if (0 >= components || null == vertices || (null == shorts) == (null == ints))
+            throw new IllegalArgumentException();
+        else {
+            this.components = components;
+            this.count = (vertices.length/components);
+            this.vertices = vertices;
+            this.shorts = shorts;
+            this.ints = ints;
+        }
+    }
+
+
+    public boolean isShort(){
+        return (null != this.shorts);
+    }
+    public int countIndices(){
+        if (null != this.shorts)
+            return this.shorts.length;
+        else
+            return this.ints.length;
+    }
+    /**
+     * @return Vertex index, unsigned
+     */
+    public int index(int cc){
+        if (null != this.shorts)
+            return (this.shorts[cc] & 0xffff);
+        else
+            return this.ints[cc];
+    }
+    /**
+     * @return Bytes of vertex and index buffers
+     */
+    public long bytes(){
+        if (null != this.shorts)
+            return ((this.vertices.length<<2) + (this.shorts.length<<1));
+        else
+            return ((this.vertices.length<<2) + (this.ints.length<<2));
+    }
+    /**
+     * @return Unindexed vertices, one per index
+     */
+    public float[] expand(){
+        final int components = this.components;
+        final int indices = this.countIndices();
+        final float[] vertices = this.vertices;
+        final float[] expand = new float[indices*components];
+
+        for (int cc = 0, tx = 0; cc < indices; cc++, tx += components){
+
+            System.arraycopy(vertices,(this.index(cc)*components),expand,tx,components);
+        }
+        return expand;
+    }
+    /**
+     * Create a static mesh, indexed when {@link #isShort()}.  Called
+     * from the GL thread.
+     */
+    public Mesh createMesh(VertexAttribute... attributes){
+
+        if (null != this.shorts){
+
+            final Mesh mesh = new Mesh(true,this.count,this.shorts.length,attributes);
+
+            mesh.setVertices(this.vertices);
+
+            mesh.setIndices(this.shorts);
+
+            return mesh;
+        }
+        else {
+            final float[] expand = this.expand();
+
+            final Mesh mesh = new Mesh(true,(expand.length/this.components),0,attributes);
+
+            mesh.setVertices(expand);
+
+            return mesh;
+        }
+    }
+}
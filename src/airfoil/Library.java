@@ -0,0 +1,609 @@
+/*
+ * Spacetime Standalone Airfoil
+ * Copyright (C) 2013, John Pritchard.
+ *
+ * This program is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+package airfoil;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+
+/**
+ * Memory mapped binary library of generated airfoil vertex sets.
+ *
+ * The file is little endian, and has three parts.
+ *
+ * <pre>
+ * header  32 bytes   magic "AFLB", version, count, configuration
+ *                    (string offset, length), quantization precision
+ *                    (float), reserved
+ * index   32 bytes   identifier (string offset, length), resolution,
+ *         per entry  geometry ordinal, vertex count (np), float count,
+ *                    block offset (long)
+ * strings            UTF-8 configuration and identifiers
+ * blocks             model vertices, eight byte aligned
+ * </pre>
+ *
+ * Blocks are packed floats when the precision is zero, and otherwise
+ * {@link Quantized} encoded vertex sets, several times smaller, for
+ * less file to read on a cold load at the cost of a decode.
+ *
+ * Index entries are sorted by identifier bytes, resolution and
+ * geometry, and are binary searched in place.  Opening maps the file
+ * and reads the header, so it costs the same for any library size.
+ * Lookup touches only the index pages on its search path, and a
+ * vertex set touches only the pages of its own block.
+ *
+ * A {@link #vertices(int) block} of packed floats is a zero copy
+ * float buffer view of the mapped file.  An {@link #get(String,int,Geometry) AirfoilVertices}
+ * holds primitive arrays, so it is one bulk copy of its block.  The
+ * {@link AirfoilCache} consults its library before generating.
+ *
+ * The library is immutable, and thread safe.  Libraries are written
+ * by the {@link Library.Writer Writer}.
+ *
+ * The system property "airfoil.Library" names the file of the {@link
+ * #Default() default} library.
+ */
+public final class Library
+    extends Object
+{
+    public final static int Magic = 0x424C4641;//"AFLB"
+
+    /**
+     * Version two adds the quantization precision, and reads version
+     * one libraries of packed floats
+     */
+    public final static int Version = 2;
+
+    public final static int Header = 32;
+
+    public final static int Record = 32;
+
+    public final static Charset UTF8 = Charset.forName("UTF-8");
+    /**
+     * System property naming the file of the default library
+     */
+    public final static String Property = "airfoil.Library";
+
+    private static Library Default;
+
+    private static String DefaultPath;
+
+    /**
+     * The library named by the system property "airfoil.Library",
+     * mapped on first use and retained.  A failure to open is not
+     * retained, and is reported to each caller.
+     *
+     * @return Default library, or null for no property
+     * @exception java.io.IOException Read failure
+     * @exception java.lang.IllegalArgumentException Not a library
+     * file
+     */
+    public final static Library Default()
+        throws IOException
+    {
+        final String path = System.getProperty(Property);
+        if (null == path || 0 == path.length())
+            return null;
+        else {
+            synchronized(Library.class){
+                if (null == Default || !path.equals(DefaultPath)){
+
+                    Default = Open(new File(path));
+                    DefaultPath = path;
+                }
+                return Default;
+            }
+        }
+    }
+    /**
+     * Map a library file.
+     *
+     * @exception java.io.IOException Read failure
+     * @exception java.lang.IllegalArgumentException Not a library
+     * file
+     */
+    public final static Library Open(File file)
+        throws IOException
+    {
+        final RandomAccessFile raf = new RandomAccessFile(file,"r");
+        try {
+            final FileChannel channel = raf.getChannel();
+            final long size = channel.size();
+            if (Header > size || Integer.MAX_VALUE < size)
+                throw new IllegalArgumentException(String.format("Library '%s' size %d",file,size));
+            else {
+                /*
+                 * The mapping remains valid after the channel is
+                 * closed
+                 */
+                final ByteBuffer map = channel.map(FileChannel.MapMode.READ_ONLY,0L,size);
+
+                return new Library(file,map.order(ByteOrder.LITTLE_ENDIAN));
+            }
+        }
+        finally {
+            raf.close();
+        }
+    }
+
+
+    public final File file;
+
+    public final String configuration;
+    /**
+     * Quantization precision of the blocks, or zero for packed floats
+     */
+    public final float precision;
+
+    private final ByteBuffer map;
+
+    private final int count;
+
+
+    private Library(File file, ByteBuffer map){
+        super();
+        if (Magic != map.getInt(0))
+            throw new IllegalArgumentException(String.format("Library '%s' magic",file));
+        else if (1 > map.getInt(4) || Version < map.getInt(4))
+            throw new IllegalArgumentException(String.format("Library '%s' version %d",file,map.getInt(4)));
+        else {
+            final int count = map.getInt(8);
+            if (0 > count || (Header+((long)count*Record)) > map.capacity())
+                throw new IllegalArgumentException(String.format("Library '%s' count %d",file,count));
+            else {
+                this.file = file;
+                this.map = map;
+                this.count = count;
+                this.configuration = this.string(map.getInt(12),map.getInt(16));
+                this.precision = (1 < map.getInt(4))?(map.getFloat(20)):(0.0f);
+            }
+        }
+    }
+
+
+    /**
+     * @return Number of entries
+     */
+    public int size(){
+        return this.count;
+    }
+    public boolean isQuantized(){
+        return (0.0f != this.precision);
+    }
+    public String identifier(int index){
+        final int record = this.record(index);
+        return this.string(this.map.getInt(record),this.map.getInt(record+4));
+    }
+    public int resolution(int index){
+        return this.map.getInt(this.record(index)+8);
+    }
+    public Geometry geometry(int index){
+        return Geometry.values()[this.map.getInt(this.record(index)+12)];
+    }
+    /**
+     * @return Number of vertices
+     */
+    public int np(int index){
+        return this.map.getInt(this.record(index)+16);
+    }
+    /**
+     * @return Entry index, or -1 when not found
+     */
+    public int indexOf(String identifier, int resolution, Geometry geometry){
+
+        final byte[] name = identifier.getBytes(UTF8);
+        final ByteBuffer map = this.map;
+
+        int lo = 0, hi = (this.count-1);
+        while (lo <= hi){
+
+            final int m = ((lo+hi)>>>1);
+            final int record = (Header+(m*Record));
+
+            int cmp = Compare(map,map.getInt(record),map.getInt(record+4),name);
+            if (0 == cmp){
+                cmp = Compare(map.getInt(record+8),resolution);
+                if (0 == cmp)
+                    cmp = Compare(map.getInt(record+12),geometry.ordinal());
+            }
+
+            if (0 > cmp)
+                lo = (m+1);
+            else if (0 < cmp)
+                hi = (m-1);
+            else
+                return m;
+        }
+        return -1;
+    }
+    public boolean contains(AirfoilCache.Key key){
+
+        return (null == key.station && this.configuration.equals(key.configuration)
+                && -1 < this.indexOf(key.identifier,key.resolution,key.geometry));
+    }
+    /**
+     * @return Zero copy little endian view of the model vertices of
+     * the entry, or a decoded copy from a quantized library
+     */
+    public FloatBuffer vertices(int index){
+
+        if (this.isQuantized()){
+
+            return FloatBuffer.wrap(this.get(index).getModelVertices());
+        }
+        else {
+            final int record = this.record(index);
+            final int floats = this.map.getInt(record+20);
+
+            return this.block(index,((long)floats<<2)).order(ByteOrder.LITTLE_ENDIAN).asFloatBuffer();
+        }
+    }
+    /**
+     * @return Snapshot of the entry
+     */
+    public AirfoilVertices get(int index){
+
+        final Geometry geometry = this.geometry(index);
+        final int np = this.np(index);
+
+        if (this.isQuantized()){
+            /*
+             * Blocks are consecutive in index order
+             */
+            final int record = this.record(index);
+            final long offset = this.map.getLong(record+24);
+            final long end = ((index+1) < this.count)?(this.map.getLong(record+Record+24)):(this.map.capacity());
+
+            final AirfoilVertices vertices = Quantized.Decode(this.block(index,(end-offset)));
+            if (geometry != vertices.geometry || np != vertices.np)
+                throw new IllegalStateException(String.format("Library '%s' entry %d %s/%d",this.file,index,vertices.geometry,vertices.np));
+            else
+                return vertices;
+        }
+        final FloatBuffer block = this.vertices(index);
+
+        final float[] model = new float[np*geometry.dimension.number];
+        if (model.length != block.remaining())
+            throw new IllegalStateException(String.format("Library '%s' entry %d length %d/%d",this.file,index,block.remaining(),model.length));
+        else {
+            block.get(model);
+
+            return new AirfoilVertices(geometry,np,model).snapshot();
+        }
+    }
+    /**
+     * @return Snapshot, or null when not found
+     */
+    public AirfoilVertices get(String identifier, int resolution, Geometry geometry){
+
+        final int index = this.indexOf(identifier,resolution,geometry);
+        if (-1 < index)
+            return this.get(index);
+        else
+            return null;
+    }
+    /**
+     * @return Snapshot, or null when not found or placed at a span
+     * station
+     */
+    public AirfoilVertices get(AirfoilCache.Key key){
+
+        if (null == key.station && this.configuration.equals(key.configuration))
+            return this.get(key.identifier,key.resolution,key.geometry);
+        else
+            return null;
+    }
+    public String toString(){
+        return String.format("Library %s %s size %d",this.file,this.configuration,this.count);
+    }
+    /**
+     * @return Block view of the entry
+     */
+    private ByteBuffer block(int index, long length){
+
+        final long offset = this.map.getLong(this.record(index)+24);
+
+        if (0L > offset || 0L > length || (offset+length) > this.map.capacity())
+            throw new IllegalStateException(String.format("Library '%s' entry %d offset %d",this.file,index,offset));
+        else {
+            final ByteBuffer block = this.map.duplicate();
+            block.limit((int)(offset+length));
+            block.position((int)offset);
+
+            return block.slice();
+        }
+    }
+    private int record(int index){
+        if (-1 < index && index < this.count)
+            return (Header+(index*Record));
+        else
+            throw new ArrayIndexOutOfBoundsException(index);
+    }
+    private String string(int offset, int length){
+
+        final byte[] bytes = new byte[length];
+
+        final ByteBuffer string = this.map.duplicate();
+        string.position(offset);
+        string.get(bytes);
+
+        return new String(bytes,UTF8);
+    }
+
+
+    /**
+     * Unsigned lexicographic comparison of mapped and query bytes
+     */
+    private final static int Compare(ByteBuffer map, int offset, int length, byte[] name){
+
+        final int common = Math.min(length,name.length);
+        for (int cc = 0; cc < common; cc++){
+
+            final int a = (map.get(offset+cc) & 0xFF);
+            final int b = (name[cc] & 0xFF);
+            if (a != b)
+                return (a-b);
+        }
+        return (length-name.length);
+    }
+    private final static int Compare(byte[] a, byte[] b){
+
+        final int common = Math.min(a.length,b.length);
+        for (int cc = 0; cc < common; cc++){
+
+            final int x = (a[cc] & 0xFF);
+            final int y = (b[cc] & 0xFF);
+            if (x != y)
+                return (x-y);
+        }
+        return (a.length-b.length);
+    }
+    private final static int Compare(int a, int b){
+        return (a < b)?(-1):((a == b)?(0):(1));
+    }
+
+
+    /**
+     * Library file writer
+     */
+    public final static class Writer
+        extends Object
+    {
+        private final static class Entry
+            extends Object
+            implements Comparable<Entry>
+        {
+            final byte[] name;
+
+            final int resolution;
+
+            final AirfoilVertices vertices;
+
+
+            Entry(String identifier, int resolution, AirfoilVertices vertices){
+                super();
+                this.name = identifier.getBytes(UTF8);
+                this.resolution = resolution;
+                this.vertices = vertices;
+            }
+
+
+            public int compareTo(Entry that){
+                int cmp = Library.Compare(this.name,that.name);
+                if (0 == cmp){
+                    cmp = Library.Compare(this.resolution,that.resolution);
+                    if (0 == cmp)
+                        cmp = Library.Compare(this.vertices.geometry.ordinal(),that.vertices.geometry.ordinal());
+                }
+                return cmp;
+            }
+        }
+
+
+        public final String configuration;
+        /**
+         * Quantization precision, or zero for packed floats
+         */
+        public final float precision;
+
+        private final java.util.ArrayList<Entry> entries = new java.util.ArrayList<Entry>();
+
+
+        /**
+         * @see Airfoil#Configuration()
+         */
+        public Writer(String configuration){
+            this(configuration,0.0f);
+        }
+        /**
+         * @param precision Quantization precision in chord units, as
+         * {@link Quantized#Precision}, or zero for packed floats
+         */
+        public Writer(String configuration, float precision){
+            super();
+            if (null == configuration || !(0.0f <= precision))
+                throw new IllegalArgumentException();
+            else {
+                this.configuration = configuration;
+                this.precision = precision;
+            }
+        }
+
+
+        public int size(){
+            return this.entries.size();
+        }
+        /**
+         * @param vertices Initialized model vertices, which are
+         * retained until written
+         */
+        public Writer add(String identifier, int resolution, AirfoilVertices vertices){
+            if (null == identifier || null == vertices || 0 >= resolution)
+                throw new IllegalArgumentException();
+            else if (null == vertices.getModelVertices() || vertices.vp != vertices.getModelVertices().length)
+                throw new IllegalArgumentException(String.format("Vertices '%s'",identifier));
+            else {
+                this.entries.add(new Entry(identifier,resolution,vertices));
+                return this;
+            }
+        }
+        /**
+         * Generate and add each identifier via the cache.
+         */
+        public Writer add(AirfoilCache cache, String[] identifiers, int resolution, Geometry geometry){
+
+            for (String identifier: identifiers){
+
+                this.add(identifier,resolution,cache.get(this.configuration,identifier,resolution,geometry));
+            }
+            return this;
+        }
+        /**
+         * @exception java.lang.IllegalStateException Duplicate entry,
+         * or library exceeding a single mapping
+         */
+        public void write(File file)
+            throws IOException
+        {
+            final Entry[] entries = this.entries.toArray(new Entry[this.entries.size()]);
+            java.util.Arrays.sort(entries);
+
+            final int count = entries.length;
+            for (int cc = 1; cc < count; cc++){
+
+                if (0 == entries[cc-1].compareTo(entries[cc]))
+                    throw new IllegalStateException(String.format("Duplicate '%s'",new String(entries[cc].name,UTF8)));
+            }
+            final byte[] configuration = this.configuration.getBytes(UTF8);
+            /*
+             * Quantized blocks are encoded ahead of the layout for
+             * their lengths
+             */
+            final byte[][] encoded = new byte[count][];
+            if (0.0f != this.precision){
+
+                for (int cc = 0; cc < count; cc++){
+
+                    encoded[cc] = Quantized.Encode(entries[cc].vertices,this.precision,Quantized.Order);
+                }
+            }
+            /*
+             * Layout
+             */
+            long strings = (Header+((long)count*Record));
+            long blocks = (strings+configuration.length);
+            int largest = 0;
+            for (int cc = 0; cc < count; cc++){
+                blocks += entries[cc].name.length;
+                largest = Math.max(largest,Length(entries[cc],encoded[cc]));
+            }
+            blocks = ((blocks+7L) & ~7L);
+
+            long size = blocks;
+            for (int cc = 0; cc < count; cc++){
+                size += ((Length(entries[cc],encoded[cc])+7L) & ~7L);
+            }
+            if (Integer.MAX_VALUE < size)
+                throw new IllegalStateException(String.format("Library size %d",size));
+            else {
+                final ByteBuffer head = ByteBuffer.allocate((int)blocks).order(ByteOrder.LITTLE_ENDIAN);
+
+                head.putInt(0,Magic);
+                head.putInt(4,Version);
+                head.putInt(8,count);
+                head.putInt(12,(int)strings);
+                head.putInt(16,configuration.length);
+                head.putFloat(20,this.precision);
+
+                head.position((int)strings);
+                head.put(configuration);
+
+                long block = blocks;
+                for (int cc = 0; cc < count; cc++){
+
+                    final Entry entry = entries[cc];
+                    final int record = (Header+(cc*Record));
+
+                    head.putInt(record,head.position());
+                    head.putInt(record+4,entry.name.length);
+                    head.putInt(record+8,entry.resolution);
+                    head.putInt(record+12,entry.vertices.geometry.ordinal());
+                    head.putInt(record+16,entry.vertices.np);
+                    head.putInt(record+20,entry.vertices.vp);
+                    head.putLong(record+24,block);
+
+                    head.put(entry.name);
+
+                    block += ((Length(entry,encoded[cc])+7L) & ~7L);
+                }
+                head.clear();
+
+                final ByteBuffer data = ByteBuffer.allocateDirect((largest+7) & ~7).order(ByteOrder.LITTLE_ENDIAN);
+
+                final RandomAccessFile raf = new RandomAccessFile(file,"rw");
+                try {
+                    raf.setLength(0L);
+
+                    final FileChannel channel = raf.getChannel();
+
+                    while (head.hasRemaining())
+                        channel.write(head);
+
+                    for (int cc = 0; cc < count; cc++){
+
+                        final int content = Length(entries[cc],encoded[cc]);
+                        final int length = ((content+7) & ~7);
+
+                        data.clear();
+                        if (null != encoded[cc])
+                            data.put(encoded[cc]);
+                        else
+                            data.asFloatBuffer().put(entries[cc].vertices.getModelVertices());
+
+                        for (int pad = content; pad < length; pad++)
+                            data.put(pad,(byte)0);
+
+                        data.position(0);
+                        data.limit(length);
+
+                        while (data.hasRemaining())
+                            channel.write(data);
+                    }
+                }
+                finally {
+                    raf.close();
+                }
+            }
+        }
+        /**
+         * @return Block content length in bytes
+         */
+        private final static int Length(Entry entry, byte[] encoded){
+            if (null != encoded)
+                return encoded.length;
+            else
+                return (entry.vertices.vp<<2);
+        }
+    }
+}
@@ -0,0 +1,286 @@
+/*
+ * Spacetime Standalone Airfoil
+ * Copyright (C) 2013, John Pritchard.
+ *
+ * This program is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+package airfoil;
+
+import com.badlogic.gdx.graphics.Mesh;
+import com.badlogic.gdx.graphics.VertexAttribute;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Level of detail pyramid of outlines decimated from one high
+ * resolution vertex set.
+ *
+ * Each level is simplified by {@link Simplify#Outline Simplify} to
+ * its own error bound, so every source vertex lies within the bound
+ * of the level outline, with points concentrated at the leading edge
+ * where the outline curves.  A level is selected by the projection of
+ * its bound to screen pixels, so a distant or small outline draws few
+ * points while a close-up draws the source.
+ *
+ * Levels are decimated on the {@link Parallel#Pool shared pool} when
+ * first wanted.  Until then, selection falls back to the nearest
+ * available level, and the coarsest level is decimated in the
+ * calling thread when none is available.
+ */
+public final class Lod
+    extends Object
+{
+    /**
+     * Default level error bounds in chord units, from coarse to fine
+     */
+    public final static float[] Bounds = {1e-2f, 3e-3f, 1e-3f, 3e-4f, 1e-4f, 3e-5f, 1e-5f, 3e-6f, 1e-6f};
+    /**
+     * Default deviation in pixels for level selection
+     */
+    public final static float Tolerance = 0.5f;
+
+    /**
+     * Pyramid level
+     */
+    public final static class Level
+        extends Object
+    {
+        /**
+         * Maximum deviation from the source in vertex units, zero for
+         * the source
+         */
+        public final float bound;
+
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+
+        private volatile IndexedMesh lines;
+
+        private volatile float error = Float.NaN;
+
+        private Mesh mesh;
+
+
+        Level(float bound){
+            super();
+            this.bound = bound;
+        }
+
+
+        public boolean isAvailable(){
+            return (null != this.lines);
+        }
+        /**
+         * @return GL_LINES outline, or null before decimation
+         */
+        public IndexedMesh getLines(){
+            return this.lines;
+        }
+        /**
+         * @return Maximum distance of a source vertex from this
+         * outline, within the bound, or NaN before decimation
+         */
+        public float getError(){
+            return this.error;
+        }
+    }
+
+
+    public final AirfoilVertices source;
+
+    private final float[] vertices;
+
+    private final Level[] levels;
+
+
+    public Lod(AirfoilVertices source){
+        this(source,Bounds);
+    }
+    /**
+     * @param source High resolution vertex set, employing its section
+     * when present and otherwise its model.  The vertex set must not
+     * be modified while the pyramid is in use, see {@link
+     * AirfoilVertices#snapshot()}.
+     * @param bounds Level error bounds in chord units, from coarse to
+     * fine, scaled by the section {@link AirfoilVertices#chord()
+     * chord}.  The source is the finest level.
+     */
+    public Lod(AirfoilVertices source, float[] bounds){
+        super();
+        if (null == source || null == bounds || 0 == bounds.length)
+            throw new IllegalArgumentException();
+        else {
+            this.source = source;
+
+            float[] vertices = source.getSectionVertices();
+            float scale = 1.0f;
+            if (null == vertices)
+                vertices = source.getModelVertices();
+            else
+                scale = Math.abs(source.chord());
+
+            this.vertices = vertices;
+
+            final Level[] levels = new Level[bounds.length+1];
+            levels[0] = new Level(0.0f);
+
+            for (int cc = 0, count = bounds.length; cc < count; cc++){
+
+                final float bound = (bounds[cc]*scale);
+                if (!(0.0f < bound) || (0 < cc && bound >= (bounds[cc-1]*scale)))
+                    throw new IllegalArgumentException(String.format("Bound %g",bounds[cc]));
+                else
+                    levels[count-cc] = new Level(bound);
+            }
+            this.levels = levels;
+        }
+    }
+
+
+    /**
+     * @return Number of levels, of which zero is the source
+     */
+    public int size(){
+        return this.levels.length;
+    }
+    public Level get(int index){
+        return this.levels[index];
+    }
+    /**
+     * @param pixels Screen pixels per vertex unit, as by {@link
+     * airfoil.etc.Controller#getPixelScale()}
+     * @param tolerance Maximum deviation in pixels
+     * @return Coarsest level whose bound is within tolerance,
+     * scheduling the decimation of levels as needed
+     */
+    public Level select(float pixels, float tolerance){
+
+        final Level[] levels = this.levels;
+        final int count = levels.length;
+        /*
+         * Coarsest within tolerance, known from the bounds before
+         * decimation
+         */
+        int want = 0;
+        for (int cc = (count-1); 0 < cc; cc--){
+
+            if ((levels[cc].bound*pixels) <= tolerance){
+                want = cc;
+                break;
+            }
+        }
+
+        final Level wanted = levels[want];
+        if (wanted.isAvailable())
+            return wanted;
+        else {
+            this.schedule(wanted);
+            /*
+             * Nearest available, finer then coarser
+             */
+            for (int cc = (want-1); 0 <= cc; cc--){
+                if (levels[cc].isAvailable())
+                    return levels[cc];
+            }
+            for (int cc = (want+1); cc < count; cc++){
+                if (levels[cc].isAvailable())
+                    return levels[cc];
+            }
+            final Level coarse = levels[count-1];
+
+            this.decimate(coarse);
+
+            return coarse;
+        }
+    }
+    /**
+     * Select a level and retain its mesh.  Called from the GL
+     * thread.
+     *
+     * @param pixels Screen pixels per vertex unit
+     * @return GL_LINES
+     */
+    public Mesh getMesh(float pixels){
+
+        final Level level = this.select(pixels,Tolerance);
+
+        Mesh mesh = level.mesh;
+        if (null == mesh){
+
+            mesh = level.lines.createMesh(VertexAttribute.Position());
+
+            level.mesh = mesh;
+        }
+        return mesh;
+    }
+    /**
+     * Dispose retained meshes.  Called from the GL thread.
+     */
+    public void dispose(){
+        for (Level level: this.levels){
+
+            final Mesh mesh = level.mesh;
+            if (null != mesh){
+                level.mesh = null;
+                mesh.dispose();
+            }
+        }
+    }
+    private void schedule(final Level level){
+
+        if (!level.isAvailable() && level.scheduled.compareAndSet(false,true)){
+
+            Parallel.Pool.execute(new Runnable(){
+                    public void run(){
+                        Lod.this.decimate(level);
+                    }
+                });
+        }
+    }
+    private void decimate(Level level){
+
+        if (!level.isAvailable()){
+
+            level.scheduled.set(true);
+
+            final AirfoilVertices source = this.source;
+            final int dim = source.geometry.dimension.number;
+            final float[] vertices = this.vertices;
+
+            if (0.0f == level.bound){
+
+                level.error = 0.0f;
+
+                level.lines = IndexedMesh.Lines(dim,vertices);
+            }
+            else {
+                final int[] kept = new int[source.np];
+
+                final int count = Simplify.Outline(vertices,dim,source.np,source.ne,level.bound,
+                                                   kept,new int[Simplify.Stack(source.np)]);
+
+                final float[] outline = new float[count*dim];
+
+                for (int cc = 0; cc < count; cc++){
+
+                    System.arraycopy(vertices,(kept[cc]*dim),outline,(cc*dim),dim);
+                }
+
+                level.error = Simplify.Deviation(vertices,dim,kept,count);
+
+                level.lines = IndexedMesh.Lines(dim,outline);
+            }
+        }
+    }
+}
@@ -0,0 +1,353 @@
+/*
+ * Spacetime Standalone Airfoil
+ * Copyright (C) 2013, John Pritchard.
+ *
+ * This program is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+package airfoil;
+
+import com.badlogic.gdx.graphics.Mesh;
+import com.badlogic.gdx.graphics.VertexAttribute;
+
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Wing skin lofted between span ordered {@link Geometry#Section
+ * section} vertex sets of equal point counts, as produced by {@link
+ * Wing#sweep(float[])}.
+ *
+ * The skin is an {@link IndexedMesh} of GL_TRIANGLES over (X,Y,Z)
+ * position and (X,Y,Z) normal vertices.  Each strip between adjacent
+ * sections is a band of quads with outward winding, and each tip is
+ * capped by a triangulation of the tip section.  Vertex normals are
+ * central differences over the section grid, so stations and strips
+ * are independent and are computed in parallel at or above the
+ * threshold of system property "airfoil.Loft.Parallel", in vertices.
+ */
+public final class Loft
+    extends Object
+{
+    /**
+     * Floats per vertex: position and normal
+     */
+    public final static int Components = 6;
+
+    public final static int ParallelThreshold = Parallel.Threshold("airfoil.Loft.Parallel",(1<<15));
+
+    /**
+     * @return Skin of the wing stations, in span order
+     * @exception java.lang.IllegalStateException Fewer than two
+     * stations
+     */
+    public final static IndexedMesh Skin(Wing wing){
+        final int count = wing.size();
+        if (2 > count)
+            throw new IllegalStateException(String.format("Stations %d",count));
+        else
+            return Skin(wing.sweep(null),count,wing.profile.np);
+    }
+    /**
+     * @param sections Contiguous (X,Y,Z) section vertices of each
+     * station in span order
+     * @param count Number of stations, at least two
+     * @param np Number of vertices in each section
+     */
+    public final static IndexedMesh Skin(float[] sections, int count, int np){
+        if (null == sections || 2 > count || 3 > np || sections.length < (count*np*3))
+            throw new IllegalArgumentException();
+        else {
+            final float[] vertices = new float[(count+2)*np*Components];
+
+            final int[] indices = new int[((count-1)*(np-1)*6)+(2*(np-2)*3)];
+
+            final float sign = Orientation(sections,count,np);
+
+            if (Parallel.Is((count*np),ParallelThreshold))
+
+                Parallel.Pool.invoke(new ParallelStations(sections,count,np,sign,vertices,indices,0,count));
+            else
+                Stations(sections,count,np,sign,vertices,indices,0,count);
+
+            Caps(sections,count,np,sign,vertices,indices);
+
+            return IndexedMesh.Create(Components,vertices,indices);
+        }
+    }
+    /**
+     * Create a static mesh of the skin for the body shader.  Called
+     * from the GL thread.
+     */
+    public final static Mesh CreateMesh(IndexedMesh skin){
+
+        return skin.createMesh(VertexAttribute.Position(),VertexAttribute.Normal());
+    }
+    /**
+     * The outward normal is the cross product of the span and chord
+     * tangents, negated for a clockwise section or a descending span.
+     *
+     * @return Sign of the outward normal
+     */
+    private final static float Orientation(float[] sections, int count, int np){
+
+        double area = 0.0;
+
+        for (int cc = 0, p0 = 0, p1 = 3; cc < (np-1); cc++, p0 += 3, p1 += 3){
+
+            area += ((sections[p0]*sections[p1+2])-(sections[p1]*sections[p0+2]));
+        }
+
+        final float dy = (sections[((count-1)*np*3)+1]-sections[1]);
+
+        if (0.0 == area || 0.0f == dy)
+            throw new IllegalArgumentException("Degenerate");
+        else if ((0.0 < area) == (0.0f < dy))
+            return 1.0f;
+        else
+            return -1.0f;
+    }
+    /**
+     * Vertices of stations [s0,s1), and the strips following them.
+     */
+    private final static void Stations(float[] sections, int count, int np, float sign,
+                                       float[] vertices, int[] indices, int s0, int s1)
+    {
+        final float[] chord = new float[3], span = new float[3];
+
+        for (int s = s0; s < s1; s++){
+
+            final int row = (s*np);
+
+            for (int i = 0; i < np; i++){
+
+                final int p = (row+i)*3;
+                final int v = (row+i)*Components;
+
+                vertices[v] = sections[p];
+                vertices[v+1] = sections[p+1];
+                vertices[v+2] = sections[p+2];
+
+                Chord(sections,row,np,i,chord);
+
+                final int sm = Math.max(0,s-1);
+                final int sp = Math.min(count-1,s+1);
+
+                final int pm = ((sm*np)+i)*3;
+                final int pp = ((sp*np)+i)*3;
+
+                span[0] = (sections[pp]-sections[pm]);
+                span[1] = (sections[pp+1]-sections[pm+1]);
+                span[2] = (sections[pp+2]-sections[pm+2]);
+
+                Normal(span,chord,sign,vertices,v+3);
+            }
+
+            if (s < (count-1)){
+
+                final int next = (row+np);
+
+                for (int i = 0, x = (s*(np-1)*6); i < (np-1); i++){
+
+                    final int a = (row+i);
+                    final int b = (a+1);
+                    final int d = (next+i);
+                    final int c = (d+1);
+
+                    if (0.0f < sign){
+                        indices[x++] = a;
+                        indices[x++] = c;
+                        indices[x++] = b;
+
+                        indices[x++] = a;
+                        indices[x++] = d;
+                        indices[x++] = c;
+                    }
+                    else {
+                        indices[x++] = a;
+                        indices[x++] = b;
+                        indices[x++] = c;
+
+                        indices[x++] = a;
+                        indices[x++] = c;
+                        indices[x++] = d;
+                    }
+                }
+            }
+        }
+    }
+    /**
+     * Chordwise tangent at section vertex 'i', between the nearest
+     * distinct neighbors so that coincident vertices have the normal
+     * of their surface.  One sided at the trailing edge.
+     */
+    private final static void Chord(float[] sections, int row, int np, int i, float[] chord){
+
+        final int p = (row+i)*3;
+
+        int m = i, n = i;
+        while (0 < m && Coincident(sections,p,(row+m)*3))
+            m -= 1;
+        while (n < (np-1) && Coincident(sections,p,(row+n)*3))
+            n += 1;
+
+        final int pm = (row+m)*3;
+        final int pn = (row+n)*3;
+
+        chord[0] = (sections[pn]-sections[pm]);
+        chord[1] = (sections[pn+1]-sections[pm+1]);
+        chord[2] = (sections[pn+2]-sections[pm+2]);
+    }
+    private final static boolean Coincident(float[] sections, int p, int q){
+
+        return (sections[p] == sections[q] && sections[p+1] == sections[q+1] && sections[p+2] == sections[q+2]);
+    }
+    /**
+     * Unit normal (span X chord)*sign into vertices at 'v'.  A
+     * degenerate normal is zero.
+     */
+    private final static void Normal(float[] span, float[] chord, float sign, float[] vertices, int v){
+
+        final float nx = ((span[1]*chord[2])-(span[2]*chord[1]));
+        final float ny = ((span[2]*chord[0])-(span[0]*chord[2]));
+        final float nz = ((span[0]*chord[1])-(span[1]*chord[0]));
+
+        final float len = (float)Math.sqrt((nx*nx)+(ny*ny)+(nz*nz));
+        if (0.0f < len){
+            final float s = (sign/len);
+
+            vertices[v] = (nx*s);
+            vertices[v+1] = (ny*s);
+            vertices[v+2] = (nz*s);
+        }
+    }
+    /**
+     * Tip caps following the skin vertices and indices.  Each is a
+     * strip across the section, pairing vertex 'i' with vertex
+     * 'np-1-i', on its own vertices with the span normal.
+     */
+    private final static void Caps(float[] sections, int count, int np, float sign, float[] vertices, int[] indices){
+
+        final float dy = Math.signum(sections[((count-1)*np*3)+1]-sections[1]);
+
+        int x = ((count-1)*(np-1)*6);
+
+        for (int tip = 0; tip < 2; tip++){
+
+            final int station = (0 == tip)?(0):(count-1);
+            final float ny = (0 == tip)?(-dy):(dy);
+            /*
+             * Triangles in section order wind with normal Y opposite
+             * the sign of the section area (see Orientation)
+             */
+            final boolean flip = ((0 == tip) != (0.0f < sign));
+
+            final int base = ((count+tip)*np);
+
+            for (int i = 0; i < np; i++){
+
+                final int p = ((station*np)+i)*3;
+                final int v = (base+i)*Components;
+
+                vertices[v] = sections[p];
+                vertices[v+1] = sections[p+1];
+                vertices[v+2] = sections[p+2];
+                vertices[v+4] = ny;
+            }
+
+            for (int i = 0; ; i++){
+
+                final int a = (base+i);
+                final int b = (a+1);
+                final int c = (base+np-2-i);
+                final int d = (c+1);
+
+                if (b < c){
+                    x = Triangle(indices,x,a,b,c,flip);
+                    x = Triangle(indices,x,a,c,d,flip);
+                }
+                else {
+                    if (b == c)
+                        x = Triangle(indices,x,a,b,d,flip);
+                    break;
+                }
+            }
+        }
+        if (x != indices.length)
+            throw new Error(String.format("%d/%d",x,indices.length));
+    }
+    private final static int Triangle(int[] indices, int x, int a, int b, int c, boolean flip){
+
+        indices[x++] = a;
+        if (flip){
+            indices[x++] = c;
+            indices[x++] = b;
+        }
+        else {
+            indices[x++] = b;
+            indices[x++] = c;
+        }
+        return x;
+    }
+
+    private final static class ParallelStations
+        extends RecursiveAction
+    {
+        private static final long serialVersionUID = 1L;
+
+        private final static int Leaf = (1<<12);
+
+
+        private final float[] sections, vertices;
+
+        private final int[] indices;
+
+        private final int count, np, s0, s1;
+
+        private final float sign;
+
+
+        ParallelStations(float[] sections, int count, int np, float sign,
+                         float[] vertices, int[] indices, int s0, int s1)
+        {
+            super();
+            this.sections = sections;
+            this.count = count;
+            this.np = np;
+            this.sign = sign;
+            this.vertices = vertices;
+            this.indices = indices;
+            this.s0 = s0;
+            this.s1 = s1;
+        }
+
+
+        protected void compute(){
+            final int stations = (this.s1-this.s0);
+            if (1 == stations || Leaf >= (stations*this.np))
+
+                Loft.Stations(this.sections,this.count,this.np,this.sign,this.vertices,this.indices,this.s0,this.s1);
+            else {
+                final int m = (this.s0+(stations>>1));
+
+                invokeAll(new ParallelStations(this.sections,this.count,this.np,this.sign,this.vertices,this.indices,this.s0,m),
+                          new ParallelStations(this.sections,this.count,this.np,this.sign,this.vertices,this.indices,m,this.s1));
+            }
+        }
+    }
+
+
+    private Loft(){
+        super();
+    }
+}
@@ -60,22 +60,32 @@ public class Main
 
     private ShaderProgram bodyShader, axesShader;
 
+    private SectionShader sectionShader;
+
+    private AirfoilBatch batch;
+
     private boolean alive = false;
 
     private int naca_number = 2509;
 
-    private int resolution = 1000;
+    private int resolution = 16384;
 
     private Geometry geometry = Geometry.Model;
 
-    private Airfoil database;
+    private final Regeneration regeneration = new Regeneration();
+
+    private Lod lod;
+
+    private Wing wing;
+
+    private AirfoilVertices[] outlines;
+
+    private Matrix4[] transforms;
 
 
     public Main(){
         super(Main.Viewport);
-        this.database = new NACA(this.naca_number);
-        this.database.init(this.resolution);
-        this.database.generate(Geometry.Model,this.geometry);
+        this.regenerate();
         this.scale = 3.0f;
     }
 
@@ -104,10 +114,59 @@ public class Main
                 Gdx.app.error(Main.Title,"Error compiling axes shader " + this.axesShader.getLog());
                 Gdx.app.exit();
             }
+            else {
+                try {
+                    this.sectionShader = new SectionShader();
+
+                    this.batch = new AirfoilBatch();
+                }
+                catch (IllegalStateException exc){
+                    this.alive = false;
+                    Gdx.app.error(Main.Title,"Error compiling section or batch shader " + exc.getMessage());
+                    Gdx.app.exit();
+                }
+            }
+        }
+    }
+    /**
+     * Request generation in the background, to be swapped in at the
+     * start of a following frame.
+     */
+    public void setAirfoil(int naca_number, int resolution){
+        this.naca_number = naca_number;
+        this.resolution = resolution;
+        this.regenerate();
+    }
+    private void regenerate(){
+
+        this.regeneration.request(new AirfoilCache.Key(NACA.class.getName(),String.valueOf(this.naca_number),
+                                                       this.resolution,this.geometry,null));
+    }
+    /**
+     * Swap in a completed generation.  Called at frame start.
+     */
+    private void swap(){
+
+        final Regeneration.Result result = this.regeneration.poll();
+        if (null != result){
+
+            if (result.isError())
+                Gdx.app.error(Main.Title,"Error generating "+result.key, result.error);
+            else {
+                final Lod lod = this.lod;
+
+                this.lod = new Lod(result.vertices);
+
+                if (null != lod)
+                    lod.dispose();
+            }
         }
     }
     @Override
     public void render(){
+
+        this.swap();
+
         if (this.alive){
             GLCommon gl = Gdx.gl;
             gl.glViewport(0, 0, this.width, this.height);
@@ -119,10 +178,69 @@ public class Main
             /*
              */
 
-            this.renderMeshLines(this.database.getMesh(this.geometry));
+            final Wing wing = this.wing;
+            final AirfoilVertices[] outlines = this.outlines;
+            if (null != wing)
+                this.renderWingLines(wing);
+            else if (null != outlines)
+                this.renderBatchLines(outlines,this.transforms,Color.YELLOW);
+            else {
+                final Lod lod = this.lod;
+                if (null != lod)
+                    this.renderMeshLines(lod.getMesh(this.getPixelScale()));
+            }
 
         }
     }
+    /**
+     * @param wing Stations to render in place of the airfoil, or null
+     */
+    public void setWing(Wing wing){
+        this.wing = wing;
+    }
+    /**
+     * @param outlines Outlines to render in place of the airfoil, or
+     * null
+     * @param transforms Placement of each outline, or null
+     */
+    public void setOutlines(AirfoilVertices[] outlines, Matrix4[] transforms){
+        if (null != outlines && null != transforms && outlines.length != transforms.length)
+            throw new IllegalArgumentException(String.format("%d/%d",outlines.length,transforms.length));
+        else {
+            this.transforms = transforms;
+            this.outlines = outlines;
+        }
+    }
+    /**
+     * Each station is placed by the section shader from one upload
+     * of the profile
+     */
+    protected final void renderWingLines(Wing wing){
+        final SectionShader sectionShader = this.sectionShader;
+        if (null != sectionShader){
+
+            sectionShader.render(wing, this.getCamera(), Color.YELLOW);
+        }
+    }
+    /**
+     * Many outlines are drawn by the batch in few draw calls, with
+     * one shader begin
+     *
+     * @param transforms Placement of each outline, or null
+     */
+    protected final void renderBatchLines(AirfoilVertices[] outlines, Matrix4[] transforms, Color color){
+        final AirfoilBatch batch = this.batch;
+        if (null != batch){
+
+            batch.begin(this.getCamera());
+
+            for (int cc = 0, count = outlines.length; cc < count; cc++){
+
+                batch.draw(outlines[cc], ((null != transforms)?(transforms[cc]):(null)), color);
+            }
+            batch.end();
+        }
+    }
     protected final void renderMeshTriangles(Mesh mesh){
         final ShaderProgram bodyShader = this.bodyShader;
         if (null != bodyShader){
@@ -174,6 +292,12 @@ public class Main
     @Override
     public void dispose(){
 
+        final Lod lod = this.lod;
+        if (null != lod){
+            this.lod = null;
+            lod.dispose();
+        }
+
         ShaderProgram bodyShader = this.bodyShader;
         if (null != bodyShader){
             this.bodyShader = null;
@@ -185,6 +309,18 @@ public class Main
             this.axesShader = null;
             axesShader.dispose();
         }
+
+        SectionShader sectionShader = this.sectionShader;
+        if (null != sectionShader){
+            this.sectionShader = null;
+            sectionShader.dispose();
+        }
+
+        AirfoilBatch batch = this.batch;
+        if (null != batch){
+            this.batch = null;
+            batch.dispose();
+        }
     }
 
     public static void main(String[] argv){
@@ -0,0 +1,243 @@
+/*
+ * Spacetime Standalone Airfoil
+ * Copyright (C) 2013, John Pritchard.
+ *
+ * This program is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+package airfoil;
+
+/**
+ * Keyframed vertex set over time, as for a flap deflection or a
+ * thickness and camber schedule.  Keyframes share one vertex layout,
+ * and are linearly interpolated between adjacent key times.  Before
+ * the first and after the last key time the end keyframe holds.
+ *
+ * The range of floats that differ between each pair of adjacent
+ * keyframes is computed once, so that a frame interpolates and
+ * uploads only the range changed since the prior frame (see {@link
+ * #dirty(int,int,int[])}).
+ *
+ * @see MorphMesh
+ */
+public final class Morph
+    extends Object
+{
+    /**
+     * Vertex dimension
+     */
+    public final int dimension;
+    /**
+     * Floats per keyframe
+     */
+    public final int length;
+
+    private final float[] times;
+
+    private final float[][] keys;
+    /**
+     * Changed float range [lo,hi) of each interval between adjacent
+     * keyframes, empty when (lo == hi)
+     */
+    private final int[] lo, hi;
+
+
+    /**
+     * @param times Ascending key times
+     * @param keys Keyframes of the same geometry and vertex count,
+     * employing the section when present and otherwise the model
+     */
+    public Morph(float[] times, AirfoilVertices[] keys){
+        this(times,Vertices(keys),Dimension(keys));
+    }
+    /**
+     * @param times Ascending key times
+     * @param keys Keyframe vertex arrays of equal length, which are
+     * retained and must not be modified
+     * @param dimension Vertex dimension
+     */
+    public Morph(float[] times, float[][] keys, int dimension){
+        super();
+        if (null == times || null == keys || 0 == times.length || times.length != keys.length || 0 >= dimension)
+            throw new IllegalArgumentException();
+        else {
+            final int count = times.length;
+            final int length = keys[0].length;
+
+            for (int cc = 0; cc < count; cc++){
+
+                if (null == keys[cc] || length != keys[cc].length)
+                    throw new IllegalArgumentException(String.format("Key %d length",cc));
+
+                else if (0 < cc && !(times[cc-1] < times[cc]))
+                    throw new IllegalArgumentException(String.format("Key %d time",cc));
+            }
+            this.dimension = dimension;
+            this.length = length;
+            this.times = times.clone();
+            this.keys = keys.clone();
+
+            final int intervals = Math.max(0,(count-1));
+            this.lo = new int[intervals];
+            this.hi = new int[intervals];
+
+            for (int cc = 0; cc < intervals; cc++){
+
+                final float[] a = keys[cc];
+                final float[] b = keys[cc+1];
+
+                int lo = 0, hi = length;
+                while (lo < hi && a[lo] == b[lo])
+                    lo += 1;
+                while (hi > lo && a[hi-1] == b[hi-1])
+                    hi -= 1;
+
+                this.lo[cc] = lo;
+                this.hi[cc] = hi;
+            }
+        }
+    }
+
+
+    public int count(){
+        return this.times.length;
+    }
+    public float time(int key){
+        return this.times[key];
+    }
+    /**
+     * @return Interval between keyframes (index) and (index+1) at
+     * time 't', with -1 before the first and (count-1) after the last
+     * key time
+     */
+    public int interval(float t){
+        final float[] times = this.times;
+        final int count = times.length;
+        if (t < times[0])
+            return -1;
+        else if (t >= times[count-1])
+            return (count-1);
+        else {
+            int lo = 0, hi = (count-1);
+            while (1 < (hi-lo)){
+                final int m = ((lo+hi)>>>1);
+                if (times[m] <= t)
+                    lo = m;
+                else
+                    hi = m;
+            }
+            return lo;
+        }
+    }
+    /**
+     * Union of the float ranges that may differ between times in two
+     * intervals.
+     *
+     * @param range Output [lo,hi), empty when (lo == hi)
+     * @return Non empty
+     */
+    public boolean dirty(int from, int to, int[] range){
+
+        final int last = (this.times.length-2);
+
+        final int i0 = Math.max(0,Math.min(from,to));
+        final int i1 = Math.min(last,Math.max(from,to));
+
+        int lo = this.length, hi = 0;
+        for (int cc = i0; cc <= i1; cc++){
+
+            if (this.lo[cc] < this.hi[cc]){
+                lo = Math.min(lo,this.lo[cc]);
+                hi = Math.max(hi,this.hi[cc]);
+            }
+        }
+        if (lo < hi){
+            range[0] = lo;
+            range[1] = hi;
+            return true;
+        }
+        else {
+            range[0] = 0;
+            range[1] = 0;
+            return false;
+        }
+    }
+    /**
+     * Interpolate the complete keyframe at time 't'.
+     *
+     * @param dst Destination of {@link #length} floats at 'ofs'
+     */
+    public void apply(float t, float[] dst, int ofs){
+
+        this.apply(t,dst,ofs,0,this.length);
+    }
+    /**
+     * Interpolate the float range [lo,hi) of the keyframe at time
+     * 't', into 'dst' at (ofs+lo).
+     */
+    public void apply(float t, float[] dst, int ofs, int lo, int hi){
+
+        final int interval = this.interval(t);
+        final int last = (this.times.length-1);
+
+        if (0 > interval)
+            System.arraycopy(this.keys[0],lo,dst,(ofs+lo),(hi-lo));
+
+        else if (last == interval)
+            System.arraycopy(this.keys[last],lo,dst,(ofs+lo),(hi-lo));
+        else {
+            final float t0 = this.times[interval];
+            final float s = ((t-t0)/(this.times[interval+1]-t0));
+            final float[] a = this.keys[interval];
+            final float[] b = this.keys[interval+1];
+
+            for (int cc = lo, dx = (ofs+lo); cc < hi; cc++, dx++){
+
+                dst[dx] = a[cc] + (s * (b[cc]-a[cc]));
+            }
+        }
+    }
+
+
+    private final static float[][] Vertices(AirfoilVertices[] keys){
+        if (null == keys)
+            throw new IllegalArgumentException();
+        else {
+            final int count = keys.length;
+            final float[][] vertices = new float[count][];
+            for (int cc = 0; cc < count; cc++){
+
+                float[] key = keys[cc].getSectionVertices();
+                if (null == key)
+                    key = keys[cc].getModelVertices();
+
+                vertices[cc] = key;
+            }
+            return vertices;
+        }
+    }
+    private final static int Dimension(AirfoilVertices[] keys){
+        if (null == keys || 0 == keys.length)
+            throw new IllegalArgumentException();
+        else {
+            final Geometry geometry = keys[0].geometry;
+            for (AirfoilVertices key: keys){
+
+                if (geometry != key.geometry)
+                    throw new IllegalArgumentException(key.geometry.name());
+            }
+            return geometry.dimension.number;
+        }
+    }
+}
@@ -0,0 +1,417 @@
+/*
+ * Spacetime Standalone Airfoil
+ * Copyright (C) 2013, John Pritchard.
+ *
+ * This program is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+package airfoil;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.graphics.GL20;
+import com.badlogic.gdx.graphics.VertexAttribute;
+import com.badlogic.gdx.graphics.VertexAttributes;
+import com.badlogic.gdx.graphics.glutils.IndexBufferObject;
+import com.badlogic.gdx.graphics.glutils.ShaderProgram;
+import com.badlogic.gdx.graphics.glutils.VertexBufferObjectSubData;
+import com.badlogic.gdx.utils.BufferUtils;
+
+import java.nio.FloatBuffer;
+
+/**
+ * Dynamic GL_LINES buffer of many {@link Morph morphing} outlines.
+ *
+ * The vertex buffer is allocated once for its capacity.  Each {@link
+ * #update(float) update} interpolates in place only the float ranges
+ * of the outlines whose keyframe interval or fraction changed, and the
+ * following {@link #render(ShaderProgram) render} uploads only those
+ * ranges with glBufferSubData.  Adjacent ranges are coalesced, so a
+ * frame in which every outline moves is one upload.
+ *
+ * The ranges are staged in a direct buffer of this mesh.  The buffer
+ * of the vertex buffer object is employed only for the first complete
+ * upload, as its access marks the object for another complete upload
+ * on bind.
+ *
+ * Time is supplied by the caller, as the {@link
+ * spacetime.standalone.Spacetime Spacetime} T coordinate, and each
+ * outline has a phase offset from it.
+ *
+ * The update is independent of GL.  The GL buffers are created on the
+ * first render, and employed from the GL thread.
+ */
+public final class MorphMesh
+    extends Object
+    implements com.badlogic.gdx.utils.Disposable
+{
+    /**
+     * Gap in floats below which dirty ranges are uploaded as one
+     */
+    public final static int Coalesce = 64;
+    /**
+     * Dirty ranges recorded before collapsing to their union
+     */
+    public final static int Ranges = 256;
+
+
+    public final int dimension;
+    /**
+     * Maximum number of vertices
+     */
+    public final int capacity;
+
+    private final float[] vertices;
+
+    private final short[] indices;
+
+    private Morph[] morphs = new Morph[0];
+
+    private float[] phase = new float[0];
+    /**
+     * Float offset of each outline
+     */
+    private int[] offset = new int[0];
+    /**
+     * Keyframe interval and local time last applied
+     */
+    private int[] interval = new int[0];
+
+    private float[] time = new float[0];
+
+    private int count, vertexCount, indexCount;
+
+    private final int[] dirty = new int[Ranges*2];
+
+    private int dirtyCount;
+
+    private boolean indicesDirty;
+
+    private final int[] range = new int[2];
+
+    private VertexBufferObjectSubData vbo;
+    /**
+     * Direct staging of dirty ranges, created with the GL buffers
+     */
+    private FloatBuffer staging;
+
+    private IndexBufferObject ibo;
+
+
+    /**
+     * @param dimension Vertex dimension, two or three
+     * @param capacity Maximum number of vertices, limited by short
+     * indices to {@link IndexedMesh#ShortLimit}
+     */
+    public MorphMesh(int dimension, int capacity){
+        super();
+        if (2 > dimension || 3 < dimension)
+            throw new IllegalArgumentException(String.valueOf(dimension));
+        else if (0 >= capacity || IndexedMesh.ShortLimit < capacity)
+            throw new IllegalArgumentException(String.format("Capacity %d exceeds %d",capacity,IndexedMesh.ShortLimit));
+        else {
+            this.dimension = dimension;
+            this.capacity = capacity;
+            this.vertices = new float[capacity*dimension];
+            this.indices = new short[capacity*2];
+        }
+    }
+
+
+    /**
+     * @return Number of outlines
+     */
+    public int size(){
+        return this.count;
+    }
+    public int getNumVertices(){
+        return this.vertexCount;
+    }
+    /**
+     * @return Vertices in place, of which the outline at 'index'
+     * begins at {@link #offset(int)}
+     */
+    public float[] getVertices(){
+        return this.vertices;
+    }
+    public int offset(int index){
+        if (-1 < index && index < this.count)
+            return this.offset[index];
+        else
+            throw new ArrayIndexOutOfBoundsException(index);
+    }
+    /**
+     * @return Available vertices for the morph
+     */
+    public boolean hasCapacity(Morph morph){
+
+        return ((this.vertexCount+(morph.length/morph.dimension)) <= this.capacity);
+    }
+    /**
+     * Append an outline at its keyframe for time 'phase'.
+     *
+     * @param morph Keyframed outline of this dimension
+     * @param phase Added to the time of each update
+     * @return Outline index
+     * @exception java.lang.IllegalStateException Insufficient capacity
+     */
+    public int add(Morph morph, float phase){
+        if (null == morph)
+            throw new IllegalArgumentException();
+        else if (this.dimension != morph.dimension)
+            throw new IllegalArgumentException(String.format("Dimension %d is not %d",morph.dimension,this.dimension));
+        else if (!this.hasCapacity(morph))
+            throw new IllegalStateException(String.format("Capacity %d exceeded",this.capacity));
+        else {
+            final int index = this.count;
+            final int np = (morph.length/morph.dimension);
+            final int first = this.vertexCount;
+            final int ofs = (first*this.dimension);
+
+            if (index == this.morphs.length){
+                final int grow = Math.max(16,(index<<1));
+
+                this.morphs = Grow(this.morphs,grow);
+                this.phase = Grow(this.phase,grow);
+                this.offset = Grow(this.offset,grow);
+                this.interval = Grow(this.interval,grow);
+                this.time = Grow(this.time,grow);
+            }
+            this.morphs[index] = morph;
+            this.phase[index] = phase;
+            this.offset[index] = ofs;
+            this.interval[index] = morph.interval(phase);
+            this.time[index] = phase;
+
+            morph.apply(phase,this.vertices,ofs);
+
+            this.mark(ofs,(ofs+morph.length));
+
+            final short[] indices = this.indices;
+            int ix = this.indexCount;
+            for (int cc = first, last = (first+np-1); cc < last; cc++){
+
+                indices[ix++] = (short)cc;
+                indices[ix++] = (short)(cc+1);
+            }
+            this.indexCount = ix;
+            this.indicesDirty = true;
+
+            this.vertexCount = (first+np);
+            this.count = (index+1);
+
+            return index;
+        }
+    }
+    /**
+     * Interpolate each outline at time (t + phase) in place, recording
+     * the changed ranges for upload.
+     *
+     * @return Number of outlines changed
+     */
+    public int update(float t){
+
+        final float[] vertices = this.vertices;
+        final int[] range = this.range;
+
+        int changed = 0;
+
+        for (int cc = 0, count = this.count; cc < count; cc++){
+
+            final Morph morph = this.morphs[cc];
+            final float local = (t+this.phase[cc]);
+            final int from = this.interval[cc];
+            final int to = morph.interval(local);
+            /*
+             * Held before the first or after the last keyframe, or
+             * unchanged
+             */
+            if (from == to && (0 > to || (morph.count()-1) == to || local == this.time[cc]))
+                continue;
+            else {
+                this.interval[cc] = to;
+                this.time[cc] = local;
+
+                if (morph.dirty(from,to,range)){
+
+                    final int ofs = this.offset[cc];
+
+                    morph.apply(local,vertices,ofs,range[0],range[1]);
+
+                    this.mark((ofs+range[0]),(ofs+range[1]));
+
+                    changed += 1;
+                }
+            }
+        }
+        return changed;
+    }
+    /**
+     * @return Number of pending upload ranges
+     */
+    public int getDirtyRanges(){
+        return this.dirtyCount;
+    }
+    /**
+     * Upload changes, and draw all outlines as GL_LINES.  Called from
+     * the GL thread between begin and end of the shader program,
+     * which has the "a_position" attribute.
+     */
+    public void render(ShaderProgram program){
+
+        if (0 == this.indexCount)
+            return;
+        else {
+            VertexBufferObjectSubData vbo = this.vbo;
+            if (null == vbo){
+                vbo = new VertexBufferObjectSubData(false,this.capacity,
+                                                    new VertexAttribute(VertexAttributes.Usage.Position,this.dimension,
+                                                                        ShaderProgram.POSITION_ATTRIBUTE));
+                this.vbo = vbo;
+                this.ibo = new IndexBufferObject(false,this.indices.length);
+                if (null == this.staging)
+                    this.staging = BufferUtils.newFloatBuffer(this.vertices.length);
+                /*
+                 * Complete upload on bind
+                 */
+                vbo.setVertices(this.vertices,0,this.vertices.length);
+
+                this.dirtyCount = 0;
+                this.indicesDirty = true;
+            }
+            final IndexBufferObject ibo = this.ibo;
+
+            vbo.bind(program);
+
+            this.upload();
+
+            if (this.indicesDirty){
+                this.indicesDirty = false;
+
+                ibo.setIndices(this.indices,0,this.indexCount);
+            }
+            ibo.bind();
+
+            Gdx.gl20.glDrawElements(GL20.GL_LINES,this.indexCount,GL20.GL_UNSIGNED_SHORT,0);
+
+            ibo.unbind();
+
+            vbo.unbind(program);
+        }
+    }
+    /**
+     * @return Bytes of the vertex and index buffers
+     */
+    public long getMeshBytes(){
+
+        return ((long)this.vertices.length<<2)+((long)this.indices.length<<1);
+    }
+    public void dispose(){
+
+        final VertexBufferObjectSubData vbo = this.vbo;
+        if (null != vbo){
+            this.vbo = null;
+            vbo.dispose();
+        }
+        final IndexBufferObject ibo = this.ibo;
+        if (null != ibo){
+            this.ibo = null;
+            ibo.dispose();
+        }
+        /*
+         * Complete upload on a following render
+         */
+        this.dirtyCount = 0;
+    }
+    /**
+     * Record the float range [lo,hi) for upload, coalescing with the
+     * last range within {@link #Coalesce} floats, and collapsing all
+     * ranges to their union beyond {@link #Ranges}.
+     */
+    private void mark(int lo, int hi){
+
+        final int[] dirty = this.dirty;
+        final int last = ((this.dirtyCount-1)<<1);
+
+        if (0 <= last && lo <= (dirty[last+1]+Coalesce) && hi >= (dirty[last]-Coalesce)){
+
+            dirty[last] = Math.min(dirty[last],lo);
+            dirty[last+1] = Math.max(dirty[last+1],hi);
+        }
+        else if (this.dirtyCount < Ranges){
+
+            dirty[last+2] = lo;
+            dirty[last+3] = hi;
+            this.dirtyCount += 1;
+        }
+        else {
+            for (int cc = 0; cc <= last; cc += 2){
+
+                lo = Math.min(lo,dirty[cc]);
+                hi = Math.max(hi,dirty[cc+1]);
+            }
+            dirty[0] = lo;
+            dirty[1] = hi;
+            this.dirtyCount = 1;
+        }
+    }
+    /**
+     * Stage and upload the dirty ranges into the bound vertex buffer.
+     * The vertex buffer object is not accessed, as {@link
+     * VertexBufferObjectSubData#getBuffer()} and {@link
+     * VertexBufferObjectSubData#setVertices(float[],int,int)} both
+     * mark it for a complete upload on the next bind.
+     */
+    private void upload(){
+
+        final int ranges = this.dirtyCount;
+        if (0 < ranges){
+            this.dirtyCount = 0;
+
+            final GL20 gl = Gdx.gl20;
+            final float[] vertices = this.vertices;
+            final int[] dirty = this.dirty;
+            final FloatBuffer staging = this.staging;
+
+            for (int cc = 0, end = (ranges<<1); cc < end; cc += 2){
+
+                final int lo = dirty[cc];
+                final int hi = dirty[cc+1];
+
+                staging.clear();
+                staging.put(vertices,lo,(hi-lo));
+                staging.flip();
+
+                gl.glBufferSubData(GL20.GL_ARRAY_BUFFER,(lo<<2),((hi-lo)<<2),staging);
+            }
+            staging.clear();
+        }
+    }
+
+
+    private final static Morph[] Grow(Morph[] list, int length){
+        final Morph[] copy = new Morph[length];
+        System.arraycopy(list,0,copy,0,list.length);
+        return copy;
+    }
+    private final static float[] Grow(float[] list, int length){
+        final float[] copy = new float[length];
+        System.arraycopy(list,0,copy,0,list.length);
+        return copy;
+    }
+    private final static int[] Grow(int[] list, int length){
+        final int[] copy = new int[length];
+        System.arraycopy(list,0,copy,0,list.length);
+        return copy;
+    }
+}
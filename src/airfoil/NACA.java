@@ -19,14 +19,38 @@
  */
 package airfoil;
 
+import java.util.concurrent.RecursiveAction;
 
 /**
  * NACA airfoil geometry
+ * 
+ * Profiles with at least as many panels as the system property
+ * "airfoil.NACA.Parallel" are generated in the {@link Parallel#Pool}.
  */
 public class NACA
     extends Airfoil
 {
-
+    /**
+     * Number of panels at or above which {@link #init(int)} is
+     * parallel
+     */
+    public final static int ParallelThreshold = Parallel.Threshold("airfoil.NACA.Parallel",(1<<15));
+    /**
+     * Greatest chord interval of adaptive stations
+     * @see #init(float)
+     */
+    public final static double AdaptiveStep = 0.1;
+    /**
+     * Greatest number of adaptive stations
+     * @see #init(float)
+     */
+    public final static int AdaptiveLimit = (1<<22);
+    /**
+     * Fraction of the tolerance employed by the local curvature
+     * estimate, for the variation of curvature over a panel
+     * @see #init(float)
+     */
+    public final static double AdaptiveMargin = 0.8;
 
     /**
      * NACA airfoil series parameters
@@ -108,16 +132,21 @@ public class NACA
         }
         public void xy45(Foil foil){
 
-            if ( foil.xc < 1.0e-10 ){
-                foil.tc = 0.0f;
-            }
-            else {
-                foil.tc = this.t_max * 5 * ( 0.2969f * (float)Math.sqrt(foil.xc)
-                                        - foil.xc * ( 0.1260f
-                                                      + foil.xc * ( 0.3537f
-                                                                    - foil.xc * ( 0.2843f
-                                                                                  - foil.xc * 0.1015f))));
-            }
+            this.thickness(foil);
+
+            this.camber(foil);
+        }
+        /**
+         * Thickness from the unit thickness distribution
+         */
+        public void thickness(Foil foil){
+
+            foil.tc = this.t_max * 5 * Thickness(foil.xc);
+        }
+        /**
+         * Mean line and its slope angle
+         */
+        public void camber(Foil foil){
 
             if ( 0.0 == this.c_max){
                 foil.yc = 0.0f;
@@ -149,6 +178,292 @@ public class NACA
                 }
             }
         }
+        /**
+         * @return Second derivative of the mean line
+         */
+        public float camberCurvature(float xc){
+
+            if ( 0.0 == this.c_max)
+                return 0.0f;
+            else if (this.not5){
+                if ( xc < this.x_cam )
+                    return ( -2 * this.c_max / (this.x_cam*this.x_cam));
+                else
+                    return ( -2 * this.c_max / (float)Math.pow((1-this.x_cam),2));
+            }
+            else {
+                if ( xc < this.c_max ){
+                    final float r = xc / this.c_max;
+                    return ( this.x_cam * ( 6*r - 6 ) / (this.c_max*this.c_max));
+                }
+                else
+                    return 0.0f;
+            }
+        }
+        /**
+         * @return Chord station of the discontinuity in mean line
+         * curvature, or zero
+         */
+        public double joint(){
+            if ( 0.0 == this.c_max)
+                return 0.0;
+            else if (this.not5)
+                return this.x_cam;
+            else
+                return this.c_max;
+        }
+        /**
+         * Chord interval from station 'xc' toward the leading edge
+         * within which the chordal deviation of either surface is
+         * within the tolerance.  The deviation of a segment of length
+         * 'h' over a curve of curvature 'k' is (k h<sup>2</sup>/8).
+         *
+         * @param xc Chord station in (0,1]
+         * @param tolerance Maximum deviation in chord units
+         * @return Chord interval, at most {@link NACA#AdaptiveStep}
+         */
+        public double step(double xc, double tolerance){
+
+            final Foil foil = new Foil();
+            foil.xc = (float)xc;
+            this.camber(foil);
+
+            final double yc1 = Math.tan(foil.beta);
+            final double yc2 = this.camberCurvature(foil.xc);
+            final double t5 = (this.t_max * 5);
+            final double yt1 = t5 * ThicknessSlope(xc);
+            final double yt2 = t5 * ThicknessCurvature(xc);
+
+            return Math.min(Step(yc1+yt1,yc2+yt2,tolerance),Step(yc1-yt1,yc2-yt2,tolerance));
+        }
+        /**
+         * The segments from station 'xc' to the leading edge are
+         * within tolerance by the sagitta of a circle of the leading
+         * edge radius (1.1019 t<sup>2</sup>).
+         *
+         * @param xc Chord station in (0,1]
+         * @param tolerance Maximum deviation in chord units
+         * @return Station 'xc' may be followed by the leading edge
+         */
+        public boolean leading(double xc, double tolerance){
+
+            final double r = (1.1019 * this.t_max * this.t_max);
+            if (0.0 == r)
+                return (this.step(xc,tolerance) >= xc);
+            else {
+                final Foil foil = new Foil();
+                foil.xc = (float)xc;
+                this.xy45(foil);
+
+                final double dtx = (foil.tc * Math.sin( foil.beta ));
+                final double dty = (foil.tc * Math.cos( foil.beta ));
+
+                final double lower = Math.hypot((foil.xc + dtx),(foil.yc - dty));
+                final double upper = Math.hypot((foil.xc - dtx),(foil.yc + dty));
+
+                return (Math.max(lower,upper) <= Math.sqrt(8.0 * tolerance * r));
+            }
+        }
+        /**
+         * @param y1 Surface slope
+         * @param y2 Surface second derivative
+         * @return Chord interval of an arc length segment with
+         * deviation of the tolerance
+         */
+        private final static double Step(double y1, double y2, double tolerance){
+
+            final double q = (1.0 + (y1*y1));
+            final double k = Math.abs(y2) / (q * Math.sqrt(q));
+            if (0.0 == k)
+                return AdaptiveStep;
+            else {
+                final double ds = Math.sqrt(8.0 * AdaptiveMargin * tolerance / k);
+
+                return Math.min(AdaptiveStep,(ds / Math.sqrt(q)));
+            }
+        }
+        /**
+         * @return First derivative of {@link #Thickness(float)}
+         */
+        public final static double ThicknessSlope(double xc){
+
+            return ( 0.14845 / Math.sqrt(xc)
+                     - 0.1260
+                     - xc * ( 0.7074
+                              - xc * ( 0.8529
+                                       - xc * 0.4060)));
+        }
+        /**
+         * @return Second derivative of {@link #Thickness(float)}
+         */
+        public final static double ThicknessCurvature(double xc){
+
+            return ( -0.074225 / (xc * Math.sqrt(xc))
+                     - 0.7074
+                     + xc * ( 1.7058
+                              - xc * 1.2180));
+        }
+        /**
+         * @return Thickness distribution of the four and five digit
+         * series, before scaling by five times the maximum thickness
+         */
+        public final static float Thickness(float xc){
+
+            if ( xc < 1.0e-10 ){
+                return 0.0f;
+            }
+            else {
+                return ( 0.2969f * (float)Math.sqrt(xc)
+                         - xc * ( 0.1260f
+                                  + xc * ( 0.3537f
+                                           - xc * ( 0.2843f
+                                                    - xc * 0.1015f))));
+            }
+        }
+    }
+    /**
+     * Cosine spaced chord stations and unit thickness, shared by all
+     * NACA numbers at one resolution.
+     * 
+     * The process-wide cache holds the most recently employed tables,
+     * up to the number in system property "airfoil.NACA.Tables".
+     */
+    public final static class Table {
+
+        private final static int Capacity = Math.max(1,Integer.getInteger("airfoil.NACA.Tables",8));
+
+        private final static java.util.LinkedHashMap<Integer,Table> Cache = new java.util.LinkedHashMap<Integer,Table>(16,0.75f,true){
+            private static final long serialVersionUID = 1L;
+
+            protected boolean removeEldestEntry(java.util.Map.Entry<Integer,Table> eldest){
+                return (Capacity < this.size());
+            }
+        };
+        /**
+         * @param ne Interior edge vertex number of the model
+         */
+        public final static Table For(int ne){
+            final Integer key = Integer.valueOf(ne);
+            synchronized(Cache){
+                Table table = Cache.get(key);
+                if (null == table){
+                    table = new Table(ne);
+                    Cache.put(key,table);
+                }
+                return table;
+            }
+        }
+
+
+        public final int ne;
+        /**
+         * Chord station and unit thickness by panel number, in (0
+         * &lt; n &lt; ne)
+         */
+        private final float[] xc, tu;
+
+
+        /**
+         * Chord stations placed by {@link Series#step(double,double)}
+         * from the trailing edge toward the leading edge, for one
+         * NACA number and tolerance.  Not cached.
+         *
+         * @param tolerance Maximum deviation in chord units
+         * @exception java.lang.IllegalArgumentException Tolerance
+         * requires more than {@link NACA#AdaptiveLimit} stations
+         */
+        public final static Table Adaptive(Series series, float tolerance){
+            if (!(0.0f < tolerance))
+                throw new IllegalArgumentException(String.valueOf(tolerance));
+            else {
+                float[] xc = new float[64];
+                int n = 1;
+                double x = 1.0;
+                while (true){
+
+                    if (n == xc.length){
+                        if (AdaptiveLimit <= n)
+                            throw new IllegalArgumentException(String.format("Tolerance %g exceeds %d stations",tolerance,AdaptiveLimit));
+                        else {
+                            final float[] copier = new float[n<<1];
+                            System.arraycopy(xc,0,copier,0,n);
+                            xc = copier;
+                        }
+                    }
+                    xc[n++] = (float)x;
+
+                    if (series.leading(x,tolerance))
+                        break;
+                    else {
+                        /*
+                         * Least interval over the segment end points
+                         */
+                        final double dx0 = Math.min(series.step(x,tolerance),(x/2));
+
+                        final double dx = Math.min(dx0,series.step((x-dx0),tolerance));
+                        /*
+                         * Land on the mean line joint
+                         */
+                        final double joint = series.joint();
+
+                        if (x > joint && (x-dx) < joint)
+                            x = joint;
+                        else
+                            x -= dx;
+                    }
+                }
+                final float[] copier = new float[n];
+                System.arraycopy(xc,0,copier,0,n);
+
+                return new Table(copier);
+            }
+        }
+
+
+        private Table(float[] xc){
+            super();
+            this.ne = xc.length;
+            this.xc = xc;
+            this.tu = new float[this.ne];
+
+            for (int n = 1; n < this.ne; n++){
+
+                this.tu[n] = Series.Thickness(xc[n]);
+            }
+        }
+        private Table(int ne){
+            super();
+            this.ne = ne;
+            this.xc = new float[ne];
+            this.tu = new float[ne];
+
+            final int ve = (ne<<1);
+
+            for (int n = 1; n < ne; n++){
+
+                final int lx = (n-1)<<1;
+
+                final float xc = (float)(( 1.0 + Math.cos( Math.PI * lx/ve )) / 2.0);
+
+                this.xc[n] = xc;
+                this.tu[n] = Series.Thickness(xc);
+            }
+        }
+
+
+        public float xc(int n){
+            return this.xc[n];
+        }
+        public float tu(int n){
+            return this.tu[n];
+        }
+        public void xy45(Series series, int n, Series.Foil foil){
+
+            foil.xc = this.xc[n];
+            foil.tc = series.t_max * 5 * this.tu[n];
+
+            series.camber(foil);
+        }
     }
 
 
@@ -176,7 +491,35 @@ public class NACA
      */
     public void init(final int np){
 
-        AirfoilVertices model = this.define(np);
+        final AirfoilVertices model = this.define(np);
+
+        this.init(model,Table.For(model.ne));
+    }
+    /**
+     * Construct {@link Geometry#Model model} ({@link Geometry#TB2})
+     * with chord stations placed by surface curvature, rather than
+     * cosine spacing, so that each panel deviates from the profile
+     * by at most the tolerance.
+     *
+     * The model has the vertex layout of {@link #init(int)}, with
+     * the number of vertices determined by the tolerance.
+     *
+     * @param tolerance Maximum deviation in chord units
+     */
+    public void init(final float tolerance){
+
+        final Table table = Table.Adaptive(this.number,tolerance);
+        /*
+         * (ne == n/2-1)
+         */
+        final AirfoilVertices model = this.define((table.ne+1)<<1);
+
+        if (model.ne != table.ne)
+            throw new Error(String.format("%d/%d",model.ne,table.ne));
+        else
+            this.init(model,table);
+    }
+    private void init(AirfoilVertices model, Table table){
 
         model.setDescription(this.number.toString());
 
@@ -184,31 +527,14 @@ public class NACA
 
         float[] gl_lines_panel_order = model.getModelVertices();
         {
-            int lx, ly, ux, uy;
-            float dtx, dty;
-            Series.Foil foil = new Series.Foil();
             /*
              * Model: (2 == geometry.dimension)
              */
-            for (int n = 1; n < model.ne; n++){
-
-                lx = (n-1)<<1;
-                ly = (lx + 1);
+            if (Parallel.Is(model.ne,ParallelThreshold))
 
-                ux = (model.np-n)<<1;
-                uy = (ux + 1);
-
-                foil.xc = (float)(( 1.0 + Math.cos( Math.PI * lx/ve )) / 2.0);
-
-                this.number.xy45(foil);
-
-                dtx = (float)(foil.tc * Math.sin( foil.beta ));
-                dty = (float)(foil.tc * Math.cos( foil.beta ));
-                gl_lines_panel_order[lx] = foil.xc + dtx;
-                gl_lines_panel_order[ly] = foil.yc - dty;
-                gl_lines_panel_order[ux] = foil.xc - dtx;
-                gl_lines_panel_order[uy] = foil.yc + dty;
-            }
+                Parallel.Pool.invoke(new ParallelPanels(this.number,table,gl_lines_panel_order,model.np,1,model.ne));
+            else
+                Panels(this.number,table,gl_lines_panel_order,model.np,1,model.ne);
         }
         {
             gl_lines_panel_order[0] = 1.0f;
@@ -232,12 +558,100 @@ public class NACA
         }
         model.setModelVertices(gl_lines_panel_order);
     }
+    /**
+     * @return Four or five digit number, as for {@link
+     * #NACA(String)}
+     */
+    @Override
+    public String getAirfoilIdentifier(){
+        return String.format("%04d",this.number.naca);
+    }
     public String toString(){
         return this.number.toString();
     }
 
+
+    /**
+     * Panel vertices for the half open interval [n0,n1) of panel
+     * numbers, writing the lower surface from the trailing edge and
+     * the upper surface from the end of the model path.
+     */
+    protected final static void Panels(Series number, Table table, float[] gl_lines_panel_order, int np, int n0, int n1){
+
+        int lx, ly, ux, uy;
+        float dtx, dty;
+        Series.Foil foil = new Series.Foil();
+
+        for (int n = n0; n < n1; n++){
+
+            lx = (n-1)<<1;
+            ly = (lx + 1);
+
+            ux = (np-n)<<1;
+            uy = (ux + 1);
+
+            table.xy45(number,n,foil);
+
+            dtx = (float)(foil.tc * Math.sin( foil.beta ));
+            dty = (float)(foil.tc * Math.cos( foil.beta ));
+            gl_lines_panel_order[lx] = foil.xc + dtx;
+            gl_lines_panel_order[ly] = foil.yc - dty;
+            gl_lines_panel_order[ux] = foil.xc - dtx;
+            gl_lines_panel_order[uy] = foil.yc + dty;
+        }
+    }
+    /**
+     * Parallel {@link NACA#Panels(Series,Table,float[],int,int,int)
+     * panels}.  Each panel number writes its own pair of vertices, so
+     * the output is identical to the serial evaluation.
+     */
+    private final static class ParallelPanels
+        extends RecursiveAction
+    {
+        private static final long serialVersionUID = 1L;
+
+        private final static int Leaf = (1<<12);
+
+
+        private final Series number;
+
+        private final Table table;
+
+        private final float[] model;
+
+        private final int np, n0, n1;
+
+
+        ParallelPanels(Series number, Table table, float[] model, int np, int n0, int n1){
+            super();
+            this.number = number;
+            this.table = table;
+            this.model = model;
+            this.np = np;
+            this.n0 = n0;
+            this.n1 = n1;
+        }
+
+
+        protected void compute(){
+            final int count = (this.n1-this.n0);
+            if (Leaf >= count)
+
+                NACA.Panels(this.number,this.table,this.model,this.np,this.n0,this.n1);
+            else {
+                final int m = (this.n0+(count>>1));
+
+                invokeAll(new ParallelPanels(this.number,this.table,this.model,this.np,this.n0,m),
+                          new ParallelPanels(this.number,this.table,this.model,this.np,m,this.n1));
+            }
+        }
+    }
+
     /**
      * Print section
+     * 
+     * Arguments geometry, number of points and {@link Export.Format
+     * format} (default Gnuplot).
      */
     public final static void main(String[] argv){
 
@@ -245,6 +659,8 @@ public class NACA
 
         int np = 20;
 
+        Export.Format format = Export.Format.Gnuplot;
+
         if (0 < argv.length){
 
             geometry = Geometry.For(argv[0]);
@@ -252,6 +668,11 @@ public class NACA
             if (1 < argv.length){
 
                 np = Integer.parseInt(argv[1]);
+
+                if (2 < argv.length){
+
+                    format = Export.Format.For(argv[2]);
+                }
             }
         }
 
@@ -260,7 +681,7 @@ public class NACA
             naca.init(np);
             naca.generate(Geometry.Model,geometry);
 
-            if (naca.list(geometry)){
+            if (naca.list(geometry,format)){
 
                 System.exit(0);
             }
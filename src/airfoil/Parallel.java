@@ -0,0 +1,79 @@
+/*
+ * Spacetime Standalone Airfoil
+ * Copyright (C) 2013, John Pritchard.
+ *
+ * This program is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+package airfoil;
+
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Fork-join pool shared by the data parallel operations of this
+ * package.
+ *
+ * System property "airfoil.Parallel" is the parallelism of the pool,
+ * defaulting to the number of available processors.  Each parallel
+ * operation employs a threshold below which it runs in the calling
+ * thread, defined by a system property named for the operation (see
+ * {@link #Threshold(String,int)}).
+ */
+public final class Parallel
+    extends Object
+{
+
+    public interface Properties {
+
+        public interface Names
+            extends Properties
+        {
+            public final static String Parallelism = "airfoil.Parallel";
+        }
+    }
+
+    public final static int Parallelism;
+    static {
+        final int processors = Runtime.getRuntime().availableProcessors();
+
+        Parallelism = Math.max(1,Integer.getInteger(Properties.Names.Parallelism,processors));
+    }
+
+    public final static ForkJoinPool Pool = new ForkJoinPool(Parallelism);
+
+    /**
+     * @param name System property name
+     * @param defaultValue Threshold in the absence of the named
+     * system property
+     * @return Problem size at or above which an operation should
+     * employ the {@link #Pool}
+     */
+    public final static int Threshold(String name, int defaultValue){
+
+        return Integer.getInteger(name,defaultValue);
+    }
+    /**
+     * @return Parallel execution is available and the problem size
+     * meets the threshold
+     */
+    public final static boolean Is(int size, int threshold){
+
+        return (1 < Parallelism && threshold <= size);
+    }
+
+
+    private Parallel(){
+        super();
+    }
+}
@@ -0,0 +1,360 @@
+/*
+ * Spacetime Standalone Airfoil
+ * Copyright (C) 2013, John Pritchard.
+ *
+ * This program is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+package airfoil;
+
+import java.nio.ByteBuffer;
+import java.nio.FloatBuffer;
+
+/**
+ * Compact encoding of vertex arrays.
+ *
+ * Each component is quantized to an integer multiple of the
+ * precision, and predicted along the path from the prior vertices of
+ * the same component.  The prediction residual is zig-zag mapped to
+ * an unsigned integer.  A decoded component is within half the
+ * precision of its source.
+ *
+ * The prediction order is one for the delta from the prior vertex,
+ * or two for the delta of deltas (linear extrapolation from the two
+ * prior vertices).  The outline of a profile is smooth, so the second
+ * order residuals of a high resolution model need few bits.
+ *
+ * Residuals are bit packed in blocks of {@link #Block} values.  Each
+ * block is a byte of bit width, the width of its largest residual,
+ * followed by its residuals in that many bits each, least significant
+ * first.  A block of zero residuals is one byte.
+ *
+ * An {@link #Encode(AirfoilVertices,float,int) encoded vertex set}
+ * has an eight byte header of version, geometry ordinal, order,
+ * reserved byte and big endian float precision, followed by the
+ * varint number of vertices (np), and the residuals in planes of one
+ * component each, in vertex order.
+ */
+public final class Quantized
+    extends Object
+{
+    public final static int Version = 2;
+    /**
+     * Residuals per bit packed block
+     */
+    public final static int Block = 32;
+    /**
+     * Default precision in chord units
+     */
+    public final static float Precision = 1e-6f;
+    /**
+     * Default prediction order
+     */
+    public final static int Order = 2;
+    /**
+     * Quantized magnitude limit, so that residuals of order two fit
+     * in thirty two bits
+     */
+    public final static int Limit = (1<<28);
+
+
+    /**
+     * @return Model vertices encoded with the default precision and
+     * order
+     */
+    public final static byte[] Encode(AirfoilVertices vertices){
+
+        return Encode(vertices,Precision,Order);
+    }
+    /**
+     * @param precision Quantization interval in vertex units
+     * @param order Prediction order, one or two
+     * @return Encoded model vertices
+     */
+    public final static byte[] Encode(AirfoilVertices vertices, float precision, int order){
+
+        final float[] model = vertices.getModelVertices();
+        final int dim = vertices.geometry.dimension.number;
+
+        final ByteBuffer dst = ByteBuffer.allocate(8+5+Bound(model.length));
+
+        dst.put((byte)Version);
+        dst.put((byte)vertices.geometry.ordinal());
+        dst.put((byte)order);
+        dst.put((byte)0);
+        dst.putFloat(precision);
+
+        Varint(dst,vertices.np);
+
+        Encode(model,0,model.length,dim,precision,order,dst);
+
+        final byte[] copy = new byte[dst.position()];
+        System.arraycopy(dst.array(),0,copy,0,copy.length);
+        return copy;
+    }
+    /**
+     * @param src Encoded vertex set from position
+     * @return Snapshot of the decoded vertex set
+     * @exception java.lang.IllegalArgumentException Unknown version
+     * or order
+     */
+    public final static AirfoilVertices Decode(ByteBuffer src){
+
+        final int version = (src.get() & 0xFF);
+        if (Version != version)
+            throw new IllegalArgumentException(String.format("Version %d",version));
+        else {
+            final Geometry geometry = Geometry.values()[src.get()];
+            final int order = src.get();
+            src.get();
+            /*
+             * Big endian in any buffer order
+             */
+            final float precision = Float.intBitsToFloat(((src.get() & 0xFF)<<24)|((src.get() & 0xFF)<<16)|
+                                                         ((src.get() & 0xFF)<<8)|(src.get() & 0xFF));
+            final int np = Varint(src);
+
+            final float[] model = new float[np*geometry.dimension.number];
+
+            Decode(src,geometry.dimension.number,precision,order,model,0,model.length);
+
+            return new AirfoilVertices(geometry,np,model).snapshot();
+        }
+    }
+    /**
+     * @return Maximum bytes to encode 'length' components, in up to
+     * three planes
+     */
+    public final static int Bound(int length){
+
+        return ((length<<2)+(length/Block)+3);
+    }
+    /**
+     * Encode the components [ofs,ofs+length) of a vertex array.
+     *
+     * @param dim Components per vertex
+     * @param precision Quantization interval
+     * @param order Prediction order, one or two
+     * @param dst Destination with at least {@link #Bound(int)}
+     * remaining
+     * @exception java.lang.IllegalArgumentException Component
+     * magnitude beyond {@link #Limit} intervals
+     */
+    public final static void Encode(float[] src, int ofs, int length, int dim, float precision, int order, ByteBuffer dst){
+
+        if (!(0.0f < precision) || 1 > order || 2 < order)
+            throw new IllegalArgumentException(String.format("Precision %g order %d",precision,order));
+        else {
+            final double scale = (1.0/precision);
+            final int[] block = new int[Block];
+
+            for (int cc = 0; cc < dim; cc++){
+                /*
+                 * Prior two quantized values of this component
+                 */
+                int q1 = 0, q2 = 0;
+                int count = 0;
+
+                for (int x = (ofs+cc), end = (ofs+length); x < end; x += dim){
+
+                    final long ql = Math.round(src[x]*scale);
+                    if (Limit < Math.abs(ql))
+                        throw new IllegalArgumentException(String.format("Component %g at precision %g",src[x],precision));
+                    else {
+                        final int q = (int)ql;
+
+                        final int residual = (1 == order)?(q-q1):(q-(q1<<1)+q2);
+
+                        block[count++] = ((residual<<1)^(residual>>31));
+
+                        if (Block == count){
+                            Pack(block,count,dst);
+                            count = 0;
+                        }
+                        q2 = q1;
+                        q1 = q;
+                    }
+                }
+                if (0 < count)
+                    Pack(block,count,dst);
+            }
+        }
+    }
+    /**
+     * Decode into the components [ofs,ofs+length) of a vertex array.
+     *
+     * Components are encoded in planes of one component each, as by
+     * {@link #Encode(float[],int,int,int,float,int,ByteBuffer)}.
+     */
+    public final static void Decode(ByteBuffer src, int dim, float precision, int order, float[] dst, int ofs, int length){
+
+        if (1 > order || 2 < order)
+            throw new IllegalArgumentException(String.format("Order %d",order));
+        else {
+            final double p = precision;
+
+            for (int cc = 0; cc < dim; cc++){
+
+                int q1 = 0, q2 = 0;
+                /*
+                 * Block bit width, residuals remaining in the block,
+                 * and bit accumulator
+                 */
+                int width = 0, remaining = 0, bits = 0;
+                long acc = 0L;
+
+                for (int x = (ofs+cc), end = (ofs+length); x < end; x += dim){
+
+                    if (0 == remaining){
+                        width = (src.get() & 0xFF);
+                        remaining = Block;
+                        bits = 0;
+                        acc = 0L;
+                    }
+                    while (bits < width){
+                        acc |= ((long)(src.get() & 0xFF)<<bits);
+                        bits += 8;
+                    }
+                    final int z = (int)(acc & ((1L<<width)-1L));
+                    acc >>>= width;
+                    bits -= width;
+                    remaining -= 1;
+
+                    final int residual = ((z>>>1)^(-(z&1)));
+
+                    final int q = (1 == order)?(q1+residual):((q1<<1)-q2+residual);
+
+                    dst[x] = (float)(q*p);
+
+                    q2 = q1;
+                    q1 = q;
+                }
+            }
+        }
+    }
+    /**
+     * Decode 'length' components into the float buffer from its
+     * position, which is advanced.
+     */
+    public final static void Decode(ByteBuffer src, int dim, float precision, int order, FloatBuffer dst, int length){
+
+        if (1 > order || 2 < order)
+            throw new IllegalArgumentException(String.format("Order %d",order));
+        else {
+            final double p = precision;
+            final int base = dst.position();
+
+            for (int cc = 0; cc < dim; cc++){
+
+                int q1 = 0, q2 = 0;
+
+                int width = 0, remaining = 0, bits = 0;
+                long acc = 0L;
+
+                for (int x = (base+cc), end = (base+length); x < end; x += dim){
+
+                    if (0 == remaining){
+                        width = (src.get() & 0xFF);
+                        remaining = Block;
+                        bits = 0;
+                        acc = 0L;
+                    }
+                    while (bits < width){
+                        acc |= ((long)(src.get() & 0xFF)<<bits);
+                        bits += 8;
+                    }
+                    final int z = (int)(acc & ((1L<<width)-1L));
+                    acc >>>= width;
+                    bits -= width;
+                    remaining -= 1;
+
+                    final int residual = ((z>>>1)^(-(z&1)));
+
+                    final int q = (1 == order)?(q1+residual):((q1<<1)-q2+residual);
+
+                    dst.put(x,(float)(q*p));
+
+                    q2 = q1;
+                    q1 = q;
+                }
+            }
+            dst.position(base+length);
+        }
+    }
+    /**
+     * Write a block of unsigned residuals as its bit width and the
+     * residuals in that width
+     */
+    private final static void Pack(int[] block, int count, ByteBuffer dst){
+
+        int or = 0;
+        for (int cc = 0; cc < count; cc++){
+            or |= block[cc];
+        }
+        final int width = (32-Integer.numberOfLeadingZeros(or));
+
+        dst.put((byte)width);
+
+        long acc = 0L;
+        int bits = 0;
+        for (int cc = 0; cc < count; cc++){
+
+            acc |= ((block[cc] & 0xFFFFFFFFL)<<bits);
+            bits += width;
+
+            while (8 <= bits){
+                dst.put((byte)acc);
+                acc >>>= 8;
+                bits -= 8;
+            }
+        }
+        if (0 < bits)
+            dst.put((byte)acc);
+    }
+    /**
+     * Write an unsigned base 128 varint
+     */
+    public final static void Varint(ByteBuffer dst, int value){
+
+        while (0 != (value & ~0x7F)){
+
+            dst.put((byte)((value & 0x7F)|0x80));
+
+            value >>>= 7;
+        }
+        dst.put((byte)value);
+    }
+    /**
+     * Read an unsigned base 128 varint
+     */
+    public final static int Varint(ByteBuffer src){
+
+        int value = 0;
+        for (int shift = 0; shift < 35; shift += 7){
+
+            final int b = src.get();
+
+            value |= ((b & 0x7F)<<shift);
+
+            if (0 == (b & 0x80))
+                return value;
+        }
+        throw new IllegalArgumentException("Varint");
+    }
+
+
+    private Quantized(){
+        super();
+    }
+}
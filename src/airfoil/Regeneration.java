@@ -0,0 +1,179 @@
+/*
+ * Spacetime Standalone Airfoil
+ * Copyright (C) 2013, John Pritchard.
+ *
+ * This program is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+package airfoil;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Background airfoil generation for the render thread.
+ *
+ * A {@link #request(AirfoilCache.Key) request} replaces any request
+ * not yet started, so rapid successive requests coalesce to the
+ * latest.  Generation is performed on the {@link Parallel#Pool shared
+ * pool} via an {@link AirfoilCache}, and each completed snapshot is
+ * published through a lock free slot holding the latest result.  The
+ * render thread {@link #poll() polls} at frame start, and swaps its
+ * meshes when a result is available.
+ */
+public final class Regeneration
+    extends Object
+{
+    /**
+     * Completed generation, or its failure
+     */
+    public final static class Result
+        extends Object
+    {
+        public final AirfoilCache.Key key;
+        /**
+         * Immutable snapshot, or null on failure
+         */
+        public final AirfoilVertices vertices;
+        /**
+         * Generation failure, including errors, or null
+         */
+        public final Throwable error;
+
+
+        Result(AirfoilCache.Key key, AirfoilVertices vertices, Throwable error){
+            super();
+            this.key = key;
+            this.vertices = vertices;
+            this.error = error;
+        }
+
+
+        public boolean isError(){
+            return (null != this.error);
+        }
+    }
+
+
+    public final AirfoilCache cache;
+
+    private final AtomicReference<AirfoilCache.Key> pending = new AtomicReference<AirfoilCache.Key>();
+
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    /**
+     * Latest result awaiting the render thread
+     */
+    private final AtomicReference<Result> completed = new AtomicReference<Result>();
+
+    private final Runnable drain = new Runnable(){
+            public void run(){
+                Regeneration.this.drain();
+            }
+        };
+
+
+    public Regeneration(){
+        this(AirfoilCache.Default);
+    }
+    public Regeneration(AirfoilCache cache){
+        super();
+        if (null == cache)
+            throw new IllegalArgumentException();
+        else
+            this.cache = cache;
+    }
+
+
+    /**
+     * @see Airfoil#Configuration()
+     */
+    public void request(String identifier, int resolution, Geometry geometry){
+
+        this.request(new AirfoilCache.Key(Airfoil.Configuration(),identifier,resolution,geometry,null));
+    }
+    /**
+     * Replace any pending request, and schedule generation.  Returns
+     * immediately.
+     */
+    public void request(AirfoilCache.Key key){
+        if (null == key)
+            throw new IllegalArgumentException();
+        else {
+            this.pending.set(key);
+
+            this.schedule();
+        }
+    }
+    /**
+     * Called from the render thread.
+     *
+     * @return Latest completed result, or null
+     */
+    public Result poll(){
+
+        return this.completed.getAndSet(null);
+    }
+    /**
+     * @return A request is pending or in generation
+     */
+    public boolean isBusy(){
+
+        return (this.running.get() || null != this.pending.get());
+    }
+
+
+    private void schedule(){
+
+        if (null != this.pending.get() && this.running.compareAndSet(false,true)){
+
+            Parallel.Pool.execute(this.drain);
+        }
+    }
+    /**
+     * Generate the latest request until none is pending.  Every
+     * failure, including an Error, is published as a result, so the
+     * render thread is never left waiting on a lost request.
+     */
+    private void drain(){
+        try {
+            AirfoilCache.Key key;
+            while (null != (key = this.pending.getAndSet(null))){
+
+                Result result;
+                try {
+                    result = new Result(key,this.cache.get(key),null);
+                }
+                catch (Throwable exc){
+
+                    result = new Result(key,null,exc);
+                }
+                /*
+                 * Superseded results are not published
+                 */
+                if (null == this.pending.get()){
+
+                    this.completed.set(result);
+                }
+            }
+        }
+        finally {
+            this.running.set(false);
+        }
+        /*
+         * Request arriving after the last poll of pending
+         */
+        this.schedule();
+    }
+}
@@ -0,0 +1,172 @@
+/*
+ * Spacetime Standalone Airfoil
+ * Copyright (C) 2013, John Pritchard.
+ *
+ * This program is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+package airfoil;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.graphics.Color;
+import com.badlogic.gdx.graphics.GL20;
+import com.badlogic.gdx.graphics.Mesh;
+import com.badlogic.gdx.graphics.VertexAttribute;
+import com.badlogic.gdx.graphics.glutils.ShaderProgram;
+import com.badlogic.gdx.math.Matrix4;
+
+/**
+ * Section placement in the vertex shader.  The unit {@link
+ * Geometry#Section section} model of a wing profile is uploaded once,
+ * and each span station is drawn from it with the "u_station"
+ * uniform (y, chord, twist) of "data/shaders/section.vert.glsl".
+ *
+ * Placement is as in {@link AirfoilVertices#transform(float,float)},
+ * scaling the origin centered model by the chord at the span
+ * coordinate, so the station trailing edge is not applied.  Twist is
+ * in radians about the Y axis.
+ *
+ * Employed from the GL thread.
+ */
+public final class SectionShader
+    extends Object
+    implements com.badlogic.gdx.utils.Disposable
+{
+    public final static String Vertex = "data/shaders/section.vert.glsl";
+    public final static String Fragment = "data/shaders/axes.frag.glsl";
+
+
+    private ShaderProgram program;
+
+    private AirfoilVertices profile;
+
+    private int version;
+
+    private Mesh mesh;
+
+
+    /**
+     * @exception java.lang.IllegalStateException Shader compilation
+     * failed
+     */
+    public SectionShader(){
+        super();
+        final ShaderProgram program = new ShaderProgram(Gdx.files.internal(Vertex).readString(),
+                                                        Gdx.files.internal(Fragment).readString());
+        if (program.isCompiled())
+            this.program = program;
+        else {
+            final String log = program.getLog();
+            program.dispose();
+            throw new IllegalStateException(log);
+        }
+    }
+
+
+    /**
+     * Draw each station of the wing as GL_LINES from the unit model
+     * of its profile.
+     */
+    public void render(Wing wing, Matrix4 camera, Color color){
+
+        final Mesh mesh = this.mesh(wing.profile);
+
+        final ShaderProgram program = this.program;
+
+        program.begin();
+
+        program.setUniformMatrix("u_camera", camera);
+        program.setUniformf("u_color", color);
+
+        for (Wing.Station station: wing){
+
+            final Airfoil.Key key = station.key;
+
+            program.setUniformf("u_station", key.y, key.chord, 0.0f);
+
+            mesh.render(program, GL20.GL_LINES);
+        }
+        program.end();
+    }
+    /**
+     * Draw one station as GL_LINES from the unit model of the
+     * profile.
+     */
+    public void render(AirfoilVertices profile, Matrix4 camera, Color color, float y, float chord, float twist){
+
+        final Mesh mesh = this.mesh(profile);
+
+        final ShaderProgram program = this.program;
+
+        program.begin();
+
+        program.setUniformMatrix("u_camera", camera);
+        program.setUniformf("u_color", color);
+        program.setUniformf("u_station", y, chord, twist);
+
+        mesh.render(program, GL20.GL_LINES);
+
+        program.end();
+    }
+    /**
+     * @return Bytes of the retained vertex and index buffers
+     */
+    public long getMeshBytes(){
+        final Mesh mesh = this.mesh;
+        if (null != mesh)
+            return ((long)mesh.getMaxVertices()*mesh.getVertexSize())+((long)mesh.getMaxIndices()<<1);
+        else
+            return 0L;
+    }
+    public void dispose(){
+
+        this.disposeMesh();
+
+        final ShaderProgram program = this.program;
+        if (null != program){
+            this.program = null;
+            program.dispose();
+        }
+    }
+    /**
+     * @return Unit model mesh of the profile, retained for its
+     * version
+     */
+    private Mesh mesh(AirfoilVertices profile){
+        if (Geometry.Section != profile.geometry)
+            throw new IllegalArgumentException(profile.geometry.name());
+        else {
+            Mesh mesh = this.mesh;
+            if (null == mesh || profile != this.profile || profile.version() != this.version){
+
+                this.disposeMesh();
+
+                mesh = profile.createModelMeshIndexed().createMesh(VertexAttribute.Position());
+
+                this.mesh = mesh;
+                this.profile = profile;
+                this.version = profile.version();
+            }
+            return mesh;
+        }
+    }
+    private void disposeMesh(){
+        final Mesh mesh = this.mesh;
+        if (null != mesh){
+            this.mesh = null;
+            this.profile = null;
+            mesh.dispose();
+        }
+    }
+}
@@ -0,0 +1,221 @@
+/*
+ * Spacetime Standalone Airfoil
+ * Copyright (C) 2013, John Pritchard.
+ *
+ * This program is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+package airfoil;
+
+/**
+ * Error bounded outline simplification by Douglas-Peucker over the
+ * primitive vertex arrays of {@link AirfoilVertices}.
+ *
+ * Each surface is simplified independently, so the first and last
+ * (trailing edge) vertices and the leading edge vertex {@link
+ * AirfoilVertices#ne ne} are always retained.  Every removed vertex
+ * lies within the tolerance of the segment between the retained
+ * vertices enclosing it, so points concentrate where the outline
+ * curves.
+ *
+ * The kernel employs caller supplied index arrays and allocates
+ * nothing.
+ */
+public final class Simplify
+    extends Object
+{
+
+    /**
+     * @param airfoil Vertex set
+     * @param tolerance Maximum deviation in chord units
+     * @return Ascending indices of retained model vertices
+     */
+    public final static int[] Model(AirfoilVertices airfoil, float tolerance){
+
+        return Copy(airfoil,airfoil.getModelVertices(),tolerance);
+    }
+    /**
+     * @param airfoil Vertex set with section
+     * @param tolerance Maximum deviation in chord units, scaled by
+     * the section {@link AirfoilVertices#chord() chord}
+     * @return Ascending indices of retained section vertices
+     */
+    public final static int[] Section(AirfoilVertices airfoil, float tolerance){
+
+        final float[] section = airfoil.getSectionVertices();
+        if (null == section)
+            throw new IllegalStateException("Missing section");
+        else
+            return Copy(airfoil,section,(tolerance*Math.abs(airfoil.chord())));
+    }
+    private final static int[] Copy(AirfoilVertices airfoil, float[] vertices, float tolerance){
+
+        final int[] kept = new int[airfoil.np];
+        final int[] stack = new int[Stack(airfoil.np)];
+
+        final int count = Outline(vertices,airfoil.geometry.dimension.number,airfoil.np,airfoil.ne,tolerance,kept,stack);
+
+        final int[] copy = new int[count];
+        System.arraycopy(kept,0,copy,0,count);
+        return copy;
+    }
+    /**
+     * @return Length of the stack array for an outline of 'np'
+     * vertices
+     */
+    public final static int Stack(int np){
+
+        return (2*np);
+    }
+    /**
+     * @param vertices Outline
+     * @param dim Vertex dimension
+     * @param np Number of vertices
+     * @param ne Leading edge vertex index
+     * @param tolerance Maximum deviation in vertex units
+     * @param kept Output of at least 'np' elements
+     * @param stack Workspace of at least {@link #Stack(int)}
+     * elements
+     * @return Number of ascending vertex indices in 'kept'
+     */
+    public final static int Outline(float[] vertices, int dim, int np, int ne, float tolerance,
+                                    int[] kept, int[] stack)
+    {
+        if (0 > ne || ne >= (np-1) || kept.length < np || stack.length < Stack(np))
+            throw new IllegalArgumentException();
+        else {
+            int count = Range(vertices,dim,0,ne,tolerance,kept,0,stack);
+
+            count = Range(vertices,dim,ne,(np-1),tolerance,kept,count,stack);
+
+            kept[count++] = (np-1);
+
+            return count;
+        }
+    }
+    /**
+     * Simplify the vertex range [first,last], writing retained
+     * indices from 'first', and excluding 'last', into 'kept' at
+     * 'ofs'.
+     *
+     * Ranges are taken from the stack in ascending order, so the
+     * output is ascending.
+     *
+     * @return Next output offset
+     */
+    public final static int Range(float[] vertices, int dim, int first, int last, float tolerance,
+                                  int[] kept, int ofs, int[] stack)
+    {
+        int sp = 0;
+        stack[sp++] = first;
+        stack[sp++] = last;
+
+        while (0 < sp){
+
+            final int b = stack[--sp];
+            final int a = stack[--sp];
+
+            final int ax = (a*dim);
+            final int bx = (b*dim);
+
+            double max = -1.0;
+            int far = -1;
+
+            for (int p = (a+1), px = (ax+dim); p < b; p++, px += dim){
+
+                final double d = Distance(vertices,dim,ax,bx,px);
+                if (d > max){
+                    max = d;
+                    far = p;
+                }
+            }
+
+            if (max > tolerance){
+                /*
+                 * [a,far] above [far,b]
+                 */
+                stack[sp++] = far;
+                stack[sp++] = b;
+                stack[sp++] = a;
+                stack[sp++] = far;
+            }
+            else
+                kept[ofs++] = a;
+        }
+        return ofs;
+    }
+    /**
+     * @param vertices Outline
+     * @param dim Vertex dimension
+     * @param kept Ascending vertex indices of a decimated outline
+     * @param count Number of kept indices
+     * @return Maximum distance of a vertex from its segment of the
+     * decimated outline
+     */
+    public final static float Deviation(float[] vertices, int dim, int[] kept, int count){
+
+        double max = 0.0;
+
+        for (int kk = 1; kk < count; kk++){
+
+            final int a = (kept[kk-1]*dim);
+            final int b = (kept[kk]*dim);
+
+            for (int p = (a+dim); p < b; p += dim){
+
+                final double d = Distance(vertices,dim,a,b,p);
+                if (d > max)
+                    max = d;
+            }
+        }
+        return (float)max;
+    }
+    /**
+     * @param a Array offset of segment start vertex
+     * @param b Array offset of segment end vertex
+     * @param p Array offset of vertex
+     * @return Distance of vertex 'p' from segment 'ab'
+     */
+    public final static double Distance(float[] vertices, int dim, int a, int b, int p){
+
+        double abl = 0.0, apab = 0.0;
+
+        for (int cc = 0; cc < dim; cc++){
+
+            final double ab = (vertices[b+cc]-vertices[a+cc]);
+            final double ap = (vertices[p+cc]-vertices[a+cc]);
+
+            abl += (ab*ab);
+            apab += (ap*ab);
+        }
+
+        final double t = (0.0 < abl)?(Math.max(0.0,Math.min(1.0,(apab/abl)))):(0.0);
+
+        double dd = 0.0;
+
+        for (int cc = 0; cc < dim; cc++){
+
+            final double ab = (vertices[b+cc]-vertices[a+cc]);
+            final double d = ((vertices[a+cc]+(t*ab))-vertices[p+cc]);
+
+            dd += (d*d);
+        }
+        return Math.sqrt(dd);
+    }
+
+
+    private Simplify(){
+        super();
+    }
+}
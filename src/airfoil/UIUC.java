@@ -0,0 +1,671 @@
+/*
+ * Spacetime Standalone Airfoil
+ * Copyright (C) 2013, John Pritchard.
+ *
+ * This program is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+package airfoil;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * UIUC airfoil coordinate database geometry
+ *
+ * A coordinate file (".dat") has a title line followed by (X,Z)
+ * pairs in one of two layouts.  The Selig layout runs from the
+ * trailing edge over the upper surface to the leading edge, and back
+ * under the lower surface to the trailing edge.  The Lednicer layout
+ * has a line of upper and lower point counts, followed by the upper
+ * then the lower surface, each from leading to trailing edge.
+ *
+ * Files are read whole through a channel and scanned as bytes by a
+ * float parser, without strings per token.  Lines other than the
+ * title having other than two numbers are ignored.
+ *
+ * The coordinates are normalized to a unit chord with the leading
+ * edge (least X) at the origin, and {@link #init(int) resampled} by
+ * linear interpolation onto the cosine spaced chord stations and
+ * vertex layout of {@link NACA#init(int)}, with leading edge index
+ * {@link AirfoilVertices#ve ve}.  A blunt trailing edge is retained
+ * in the first and last vertices.
+ *
+ * The identifier is a file path, or the name of a file in the
+ * directory of system property "airfoil.UIUC", defaulting to
+ * "data/uiuc", with the ".dat" suffix omitted.  {@link
+ * #Import(File,int) Import} reads a directory in the {@link
+ * Parallel#Pool} at or above the number of files in system property
+ * "airfoil.UIUC.Parallel".
+ */
+public class UIUC
+    extends Airfoil
+{
+    public final static String Suffix = ".dat";
+
+    public final static File Directory = new File(System.getProperty("airfoil.UIUC","data/uiuc"));
+
+    public final static int ParallelThreshold = Parallel.Threshold("airfoil.UIUC.Parallel",16);
+
+
+    public final String identifier;
+
+    public final String title;
+    /**
+     * Normalized (X,Z) surfaces from leading to trailing edge
+     */
+    private final float[] upper, lower;
+
+
+    public UIUC(){
+        this(Airfoil.Identifier());
+    }
+    /**
+     * @param identifier File path, or file name in {@link #Directory}
+     * with or without suffix
+     * @exception java.lang.IllegalArgumentException File not found,
+     * or not a coordinate file
+     * @exception java.lang.IllegalStateException Read failure
+     */
+    public UIUC(String identifier){
+        this(Resolve(identifier));
+    }
+    public UIUC(File file){
+        this(file,Read(file));
+    }
+    /**
+     * @param file Source for identifier and messages
+     * @param content Coordinate file content from position to limit
+     */
+    public UIUC(File file, ByteBuffer content){
+        super();
+        this.identifier = Identifier(file);
+
+        final Scanner scanner = new Scanner(file,content);
+
+        this.title = scanner.title();
+
+        scanner.pairs();
+
+        final int count = scanner.count;
+        final float[] x = scanner.x, z = scanner.z;
+
+        if (3 > count)
+            throw new IllegalArgumentException(String.format("UIUC '%s' points %d",file,count));
+        /*
+         * Lednicer counts precede coordinates
+         */
+        else if (1.5f < x[0]){
+
+            final int nu = (int)x[0];
+            final int nl = (int)z[0];
+
+            if (2 > nu || 2 > nl || (1+nu+nl) != count)
+                throw new IllegalArgumentException(String.format("UIUC '%s' Lednicer counts %d %d for %d points",file,nu,nl,(count-1)));
+            else {
+                final int le = 1;
+
+                this.upper = Surface(x,z,le,nu,false);
+                this.lower = Surface(x,z,(le+nu),nl,false);
+            }
+        }
+        else {
+            /*
+             * Selig leading edge has least X
+             */
+            int le = 0;
+            for (int cc = 1; cc < count; cc++){
+                if (x[cc] < x[le])
+                    le = cc;
+            }
+            if (0 == le || (count-1) == le)
+                throw new IllegalArgumentException(String.format("UIUC '%s' leading edge %d of %d points",file,le,count));
+            else {
+                this.upper = Surface(x,z,0,(le+1),true);
+                this.lower = Surface(x,z,le,(count-le),false);
+            }
+        }
+        Normalize(file,this.upper,this.lower);
+    }
+
+
+    /**
+     * Construct {@link Geometry#Model model} ({@link Geometry#TB2})
+     */
+    public void init(final int np){
+
+        final AirfoilVertices model = this.define(np);
+
+        model.setDescription(this.title);
+
+        final float[] vertices = model.getModelVertices();
+
+        final int ne = model.ne;
+        final int last = (model.np-1);
+        /*
+         * Stations from the trailing edge
+         */
+        final float[] upper = this.upper, lower = this.lower;
+        int ui = ((upper.length>>1)-2);
+        int li = ((lower.length>>1)-2);
+
+        final int ve = (ne<<1);
+
+        for (int n = 1; n < ne; n++){
+
+            final float xc = (float)(( 1.0 + Math.cos( Math.PI * ((n-1)<<1)/ve )) / 2.0);
+
+            while (0 < li && lower[li<<1] > xc)
+                li -= 1;
+            while (0 < ui && upper[ui<<1] > xc)
+                ui -= 1;
+
+            final int lx = (n-1)<<1;
+            final int ux = (model.np-n)<<1;
+
+            vertices[lx] = xc;
+            vertices[lx+1] = Z(lower,li,xc);
+            vertices[ux] = xc;
+            vertices[ux+1] = Z(upper,ui,xc);
+        }
+        /*
+         * Trailing edge
+         */
+        {
+            vertices[0] = lower[lower.length-2];
+            vertices[1] = lower[lower.length-1];
+
+            vertices[last<<1] = upper[upper.length-2];
+            vertices[(last<<1)+1] = upper[upper.length-1];
+        }
+        /*
+         * Leading edge, as in the NACA layout
+         */
+        for (int v = (ne-1); v <= (ne+3); v++){
+
+            vertices[v<<1] = 0.0f;
+            vertices[(v<<1)+1] = 0.0f;
+        }
+        model.setModelVertices(vertices);
+    }
+    /**
+     * @return Number of upper surface points
+     */
+    public int countUpper(){
+        return (this.upper.length>>1);
+    }
+    /**
+     * @return Number of lower surface points
+     */
+    public int countLower(){
+        return (this.lower.length>>1);
+    }
+    @Override
+    public String getAirfoilIdentifier(){
+        return this.identifier;
+    }
+    public String toString(){
+        return this.title;
+    }
+
+
+    /**
+     * Read and parse the coordinate files of a directory.
+     *
+     * @param np Model vertices to {@link #init(int) init}, or zero
+     * @return Profiles in file name order, omitting files that fail
+     * to read or parse
+     */
+    public final static UIUC[] Import(File directory, int np){
+
+        final File[] files = directory.listFiles(new java.io.FileFilter(){
+                public boolean accept(File file){
+                    return (file.isFile() && file.getName().toLowerCase().endsWith(Suffix));
+                }
+            });
+        if (null == files)
+            throw new IllegalArgumentException(String.format("Directory '%s'",directory));
+        else {
+            java.util.Arrays.sort(files);
+
+            final UIUC[] list = Import(files,np);
+
+            int count = 0;
+            for (UIUC foil: list){
+                if (null != foil)
+                    list[count++] = foil;
+            }
+            final UIUC[] copier = new UIUC[count];
+            System.arraycopy(list,0,copier,0,count);
+            return copier;
+        }
+    }
+    /**
+     * @param np Model vertices to {@link #init(int) init}, or zero
+     * @return Profile for each file, or null where it failed to read
+     * or parse
+     */
+    public final static UIUC[] Import(File[] files, int np){
+
+        final UIUC[] list = new UIUC[files.length];
+
+        if (Parallel.Is(files.length,ParallelThreshold))
+
+            Parallel.Pool.invoke(new ParallelImport(files,list,np,0,files.length));
+        else
+            Import(files,list,np,0,files.length);
+
+        return list;
+    }
+    /**
+     * Import the half open interval [i0,i1) of files into the list.
+     */
+    protected final static void Import(File[] files, UIUC[] list, int np, int i0, int i1){
+
+        for (int cc = i0; cc < i1; cc++){
+            try {
+                final UIUC foil = new UIUC(files[cc]);
+
+                if (0 < np)
+                    foil.init(np);
+
+                list[cc] = foil;
+            }
+            catch (RuntimeException exc){
+
+                list[cc] = null;
+            }
+        }
+    }
+    /**
+     * Parallel {@link UIUC#Import(File[],UIUC[],int,int,int)
+     * import}.  Each file writes its own list element.
+     */
+    private final static class ParallelImport
+        extends RecursiveAction
+    {
+        private static final long serialVersionUID = 1L;
+
+        private final static int Leaf = 8;
+
+
+        private final File[] files;
+
+        private final UIUC[] list;
+
+        private final int np, i0, i1;
+
+
+        ParallelImport(File[] files, UIUC[] list, int np, int i0, int i1){
+            super();
+            this.files = files;
+            this.list = list;
+            this.np = np;
+            this.i0 = i0;
+            this.i1 = i1;
+        }
+
+
+        protected void compute(){
+            final int count = (this.i1-this.i0);
+            if (Leaf >= count)
+
+                UIUC.Import(this.files,this.list,this.np,this.i0,this.i1);
+            else {
+                final int m = (this.i0+(count>>1));
+
+                invokeAll(new ParallelImport(this.files,this.list,this.np,this.i0,m),
+                          new ParallelImport(this.files,this.list,this.np,m,this.i1));
+            }
+        }
+    }
+    /**
+     * @return Existing file for identifier
+     */
+    public final static File Resolve(String identifier){
+        if (null == identifier)
+            throw new IllegalArgumentException();
+        else {
+            File file = new File(identifier);
+            if (file.isFile())
+                return file;
+            else {
+                file = new File(Directory,identifier);
+                if (file.isFile())
+                    return file;
+                else {
+                    file = new File(Directory,identifier+Suffix);
+                    if (file.isFile())
+                        return file;
+                    else
+                        throw new IllegalArgumentException(String.format("UIUC '%s' not found",identifier));
+                }
+            }
+        }
+    }
+    /**
+     * @return File name without suffix
+     */
+    public final static String Identifier(File file){
+        final String name = file.getName();
+        if (name.toLowerCase().endsWith(Suffix))
+            return name.substring(0,(name.length()-Suffix.length()));
+        else
+            return name;
+    }
+    /**
+     * @return Heap buffer of file content
+     */
+    public final static ByteBuffer Read(File file){
+        try {
+            final FileInputStream in = new FileInputStream(file);
+            try {
+                final FileChannel channel = in.getChannel();
+                final long size = channel.size();
+                if (Integer.MAX_VALUE < size)
+                    throw new IllegalArgumentException(String.format("UIUC '%s' size %d",file,size));
+                else {
+                    final ByteBuffer content = ByteBuffer.allocate((int)size);
+
+                    while (content.hasRemaining() && -1 < channel.read(content))
+                        ;
+                    content.flip();
+
+                    return content;
+                }
+            }
+            finally {
+                in.close();
+            }
+        }
+        catch (IOException exc){
+            throw new IllegalStateException(String.format("UIUC '%s'",file),exc);
+        }
+    }
+    /**
+     * @param reverse Source order from trailing to leading edge
+     * @return (X,Z) pairs from leading to trailing edge
+     */
+    private final static float[] Surface(float[] x, float[] z, int first, int count, boolean reverse){
+
+        final float[] surface = new float[count<<1];
+
+        for (int cc = 0; cc < count; cc++){
+
+            final int sx = (reverse)?(first+count-1-cc):(first+cc);
+
+            surface[cc<<1] = x[sx];
+            surface[(cc<<1)+1] = z[sx];
+        }
+        return surface;
+    }
+    /**
+     * Translate the leading edge to the origin and scale to unit
+     * chord
+     */
+    private final static void Normalize(File file, float[] upper, float[] lower){
+
+        final float x0, z0;
+        if (lower[0] < upper[0]){
+            x0 = lower[0];
+            z0 = lower[1];
+        }
+        else {
+            x0 = upper[0];
+            z0 = upper[1];
+        }
+        final float x1 = Math.max(upper[upper.length-2],lower[lower.length-2]);
+
+        final float chord = (x1-x0);
+        if (!(0.0f < chord))
+            throw new IllegalArgumentException(String.format("UIUC '%s' chord %g",file,chord));
+        else {
+            for (float[] surface: new float[][]{upper,lower}){
+
+                for (int cc = 0, count = surface.length; cc < count; cc += 2){
+
+                    surface[cc] = ((surface[cc]-x0)/chord);
+                    surface[cc+1] = ((surface[cc+1]-z0)/chord);
+                }
+            }
+        }
+    }
+    /**
+     * @param surface (X,Z) pairs from leading to trailing edge
+     * @param i Segment from point 'i' to point 'i+1'
+     * @return Linear interpolation of Z at X, clamped to the segment
+     */
+    private final static float Z(float[] surface, int i, float x){
+
+        final int ax = (i<<1);
+        final int bx = (ax+2);
+
+        final float x0 = surface[ax], x1 = surface[bx];
+        final float z0 = surface[ax+1], z1 = surface[bx+1];
+
+        final float dx = (x1-x0);
+        if (0.0f == dx)
+            return z0;
+        else {
+            final float t = Math.max(0.0f,Math.min(1.0f,((x-x0)/dx)));
+
+            return (z0+(t*(z1-z0)));
+        }
+    }
+
+
+    /**
+     * Coordinate file byte scanner
+     */
+    private final static class Scanner
+        extends Object
+    {
+        private final static double[] Pow10 = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+            1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+        };
+
+        private final File file;
+
+        private final byte[] bytes;
+
+        private final int end;
+
+        private int pos;
+
+        private double value;
+
+        float[] x = new float[256], z = new float[256];
+
+        int count;
+
+
+        Scanner(File file, ByteBuffer content){
+            super();
+            this.file = file;
+            if (content.hasArray()){
+                this.bytes = content.array();
+                this.pos = (content.arrayOffset()+content.position());
+                this.end = (content.arrayOffset()+content.limit());
+            }
+            else {
+                this.bytes = new byte[content.remaining()];
+                content.duplicate().get(this.bytes);
+                this.pos = 0;
+                this.end = this.bytes.length;
+            }
+        }
+
+
+        /**
+         * @return First line, trimmed
+         */
+        String title(){
+            final byte[] bytes = this.bytes;
+            final int end = this.end;
+            int p = this.pos;
+            while (p < end && '\n' != bytes[p])
+                p += 1;
+
+            final String title = new String(bytes,this.pos,(p-this.pos),Library.UTF8).trim();
+
+            this.pos = Math.min(end,(p+1));
+
+            if (0 == title.length())
+                return Identifier(this.file);
+            else
+                return title;
+        }
+        /**
+         * Collect lines of two numbers
+         */
+        void pairs(){
+            final byte[] bytes = this.bytes;
+            final int end = this.end;
+
+            while (this.pos < end){
+
+                int numbers = 0;
+                float a = 0.0f, b = 0.0f;
+                boolean valid = true;
+
+                while (this.pos < end){
+
+                    final byte c = bytes[this.pos];
+                    if ('\n' == c){
+                        this.pos += 1;
+                        break;
+                    }
+                    else if (' ' == c || '\t' == c || '\r' == c || ',' == c)
+                        this.pos += 1;
+
+                    else if (valid && this.number()){
+                        if (0 == numbers)
+                            a = (float)this.value;
+                        else if (1 == numbers)
+                            b = (float)this.value;
+                        numbers += 1;
+                    }
+                    else {
+                        valid = false;
+                        this.pos += 1;
+                    }
+                }
+                if (valid && 2 == numbers)
+                    this.add(a,b);
+            }
+        }
+        private void add(float a, float b){
+            final int count = this.count;
+            if (count == this.x.length){
+                final float[] x = new float[count<<1];
+                final float[] z = new float[count<<1];
+                System.arraycopy(this.x,0,x,0,count);
+                System.arraycopy(this.z,0,z,0,count);
+                this.x = x;
+                this.z = z;
+            }
+            this.x[count] = a;
+            this.z[count] = b;
+            this.count = (count+1);
+        }
+        /**
+         * Parse a number delimited by space, comma or line end into
+         * value
+         *
+         * @return Number parsed, otherwise position is unchanged
+         */
+        private boolean number(){
+            final byte[] bytes = this.bytes;
+            final int end = this.end;
+            int p = this.pos;
+
+            boolean negative = false;
+            if (p < end && ('-' == bytes[p] || '+' == bytes[p])){
+                negative = ('-' == bytes[p]);
+                p += 1;
+            }
+            long mantissa = 0L;
+            int exponent = 0, digits = 0, significant = 0;
+
+            while (p < end && '0' <= bytes[p] && '9' >= bytes[p]){
+                if (18 > significant){
+                    mantissa = (mantissa*10L)+(bytes[p]-'0');
+                    if (0L != mantissa)
+                        significant += 1;
+                }
+                else
+                    exponent += 1;
+                digits += 1;
+                p += 1;
+            }
+            if (p < end && '.' == bytes[p]){
+                p += 1;
+                while (p < end && '0' <= bytes[p] && '9' >= bytes[p]){
+                    if (18 > significant){
+                        mantissa = (mantissa*10L)+(bytes[p]-'0');
+                        exponent -= 1;
+                        if (0L != mantissa)
+                            significant += 1;
+                    }
+                    digits += 1;
+                    p += 1;
+                }
+            }
+            if (0 == digits)
+                return false;
+
+            else if (p < end && ('e' == bytes[p] || 'E' == bytes[p] || 'd' == bytes[p] || 'D' == bytes[p])){
+                p += 1;
+                boolean en = false;
+                if (p < end && ('-' == bytes[p] || '+' == bytes[p])){
+                    en = ('-' == bytes[p]);
+                    p += 1;
+                }
+                int e = 0, ed = 0;
+                while (p < end && '0' <= bytes[p] && '9' >= bytes[p]){
+                    if (1000 > e)
+                        e = (e*10)+(bytes[p]-'0');
+                    ed += 1;
+                    p += 1;
+                }
+                if (0 == ed)
+                    return false;
+                else
+                    exponent += (en)?(-e):(e);
+            }
+            if (p < end){
+                final byte c = bytes[p];
+                if (' ' != c && '\t' != c && '\r' != c && '\n' != c && ',' != c)
+                    return false;
+            }
+
+            double value = (double)mantissa;
+            if (0 == exponent || 0L == mantissa)
+                ;
+            else if (0 < exponent)
+                value = (exponent < Pow10.length)?(value*Pow10[exponent]):(value*Math.pow(10.0,exponent));
+            else
+                value = (-exponent < Pow10.length)?(value/Pow10[-exponent]):(value/Math.pow(10.0,-exponent));
+
+            this.value = (negative)?(-value):(value);
+            this.pos = p;
+            return true;
+        }
+    }
+}
@@ -0,0 +1,259 @@
+/*
+ * Spacetime Standalone Airfoil
+ * Copyright (C) 2013, John Pritchard.
+ *
+ * This program is free software: you can redistribute it and/or
+ * modify it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see
+ * <http://www.gnu.org/licenses/>.
+ */
+package airfoil;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * Spanwise store of wing sections.  Each span station is defined by
+ * an {@link Airfoil.Key}, and ordered by its Y coordinate.
+ *
+ * Insertion and lookup are O(log n), and a range of stations between
+ * two span positions is a view of the store.  The section of a
+ * station is produced on demand by {@link
+ * Airfoil.Key#transform(AirfoilVertices)} from a copy of the profile
+ * section.
+ *
+ * This class is not thread safe, while its stations are.
+ */
+public final class Wing
+    extends Object
+    implements java.lang.Iterable<Wing.Station>
+{
+    /**
+     * Span station
+     */
+    public final static class Station
+        extends Object
+    {
+        public final Wing wing;
+
+        public final Airfoil.Key key;
+
+        private AirfoilVertices section;
+
+
+        Station(Wing wing, Airfoil.Key key){
+            super();
+            this.wing = wing;
+            this.key = key;
+        }
+
+
+        public float y(){
+            return this.key.y;
+        }
+        public boolean hasSection(){
+            synchronized(this){
+                return (null != this.section);
+            }
+        }
+        /**
+         * @return Profile section placed at this station
+         */
+        public AirfoilVertices getSection(){
+            synchronized(this){
+                AirfoilVertices section = this.section;
+                if (null == section){
+
+                    section = this.key.transform(this.wing.profile.clone());
+
+                    this.section = section;
+                }
+                return section;
+            }
+        }
+        /**
+         * Release the section for regeneration on demand
+         */
+        public void dispose(){
+            synchronized(this){
+                AirfoilVertices section = this.section;
+                if (null != section){
+                    this.section = null;
+                    section.dispose();
+                }
+            }
+        }
+        public String toString(){
+            return String.format("y % 4.4f lex % 4.4f tex % 4.4f",this.key.y,this.key.lex,this.key.tex);
+        }
+    }
+
+
+    /**
+     * Unplaced section of the wing profile
+     */
+    public final AirfoilVertices profile;
+
+    private final TreeMap<Float,Station> stations = new TreeMap<Float,Station>();
+
+
+    /**
+     * @param profile Airfoil with model vertices, and optionally
+     * section vertices.  The section is generated as needed.
+     */
+    public Wing(Airfoil profile){
+        super();
+        if (null == profile)
+            throw new IllegalArgumentException();
+        else {
+            AirfoilVertices section = profile.getSectionVertices();
+            if (null == section)
+                section = profile.generate(Geometry.Model,Geometry.Section);
+
+            this.profile = section;
+        }
+    }
+    public Wing(Airfoil profile, Airfoil.Key[] keys){
+        this(profile);
+        this.add(keys);
+    }
+
+
+    public int size(){
+        return this.stations.size();
+    }
+    public boolean isEmpty(){
+        return this.stations.isEmpty();
+    }
+    /**
+     * Insert or replace the station at the Y coordinate of the key.
+     */
+    public Station add(Airfoil.Key key){
+        if (null == key)
+            throw new IllegalArgumentException();
+        else {
+            final Station station = new Station(this,key);
+
+            final Station prior = this.stations.put(key.y,station);
+            if (null != prior)
+                prior.dispose();
+
+            return station;
+        }
+    }
+    public void add(Airfoil.Key[] keys){
+        if (null != keys){
+            for (Airfoil.Key key: keys){
+                if (null != key)
+                    this.add(key);
+            }
+        }
+    }
+    public Station remove(float y){
+
+        return this.stations.remove(y);
+    }
+    /**
+     * @return Station at span position, or null
+     */
+    public Station get(float y){
+
+        return this.stations.get(y);
+    }
+    /**
+     * @return Nearest station at or below the span position, or null
+     */
+    public Station floor(float y){
+
+        return Value(this.stations.floorEntry(y));
+    }
+    /**
+     * @return Nearest station at or above the span position, or null
+     */
+    public Station ceiling(float y){
+
+        return Value(this.stations.ceilingEntry(y));
+    }
+    public Station first(){
+
+        return Value(this.stations.firstEntry());
+    }
+    public Station last(){
+
+        return Value(this.stations.lastEntry());
+    }
+    /**
+     * @return Stations between two span positions, inclusive, in
+     * ascending order.  A view of the store.
+     */
+    public java.lang.Iterable<Station> range(float y0, float y1){
+
+        final NavigableMap<Float,Station> range;
+        if (y0 <= y1)
+            range = this.stations.subMap(y0,true,y1,true);
+        else
+            range = this.stations.subMap(y1,true,y0,true);
+
+        return range.values();
+    }
+    public Iterator<Station> iterator(){
+
+        return this.stations.values().iterator();
+    }
+    /**
+     * @return Station keys in ascending span order
+     */
+    public Airfoil.Key[] keys(){
+
+        final Airfoil.Key[] keys = new Airfoil.Key[this.stations.size()];
+        int cc = 0;
+        for (Station station: this.stations.values()){
+
+            keys[cc++] = station.key;
+        }
+        return keys;
+    }
+    /**
+     * Stamp every station from the profile model into one array, in
+     * ascending span order.
+     *
+     * @param out Destination, or null to allocate
+     * @see AirfoilVertices#sweep(Airfoil.Key[],float[])
+     */
+    public float[] sweep(float[] out){
+
+        return this.profile.sweep(this.keys(),out);
+    }
+    /**
+     * @return Skin of two or more stations, for a single draw call
+     * via {@link Loft#CreateMesh(IndexedMesh)}
+     */
+    public IndexedMesh skin(){
+
+        return Loft.Skin(this);
+    }
+    public void dispose(){
+        for (Station station: this.stations.values()){
+
+            station.dispose();
+        }
+    }
+
+    private final static Station Value(Map.Entry<Float,Station> entry){
+        if (null == entry)
+            return null;
+        else
+            return entry.getValue();
+    }
+}
@@ -99,6 +99,12 @@ public abstract class Controller
     public Matrix4 getCamera(){
         return this.camera;
     }
+    /**
+     * @return Screen pixels per model unit at the current scale
+     */
+    public float getPixelScale(){
+        return ((this.height*this.scale)/(2.0f*H));
+    }
     private void reinit(){
 
         this.camera.setToOrtho(-this.hor,+this.hor,-this.ver,+this.ver,-this.hor,+this.hor);